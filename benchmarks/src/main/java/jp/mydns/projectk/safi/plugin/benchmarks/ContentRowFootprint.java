@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jp.mydns.projectk.safi.plugin.ContentLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+/**
+ * Retained heap per content of each row type, measured by walking the object graph with JOL. The value strings are
+ * shared by all row types and are excluded, so only the row structure is measured. The result is deterministic for a
+ * JVM configuration.
+ *
+ * <p>
+ * {@code MAP} shares the key strings of the layout, as {@link ImporterFetchBenchmark} does. {@code MAP_COPIED_KEYS}
+ * has its own key strings per content, as a map built by a parser does. {@code CONTENT_ROW} is created by
+ * {@link ContentLayout#newRow(String...)}.
+ *
+ * <p>
+ * Run it with {@code java -cp benchmarks.jar jp.mydns.projectk.safi.plugin.benchmarks.ContentRowFootprint}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class ContentRowFootprint {
+
+    private static final int ROWS = 10_000;
+    private static final int[] COLUMNS = {8, 40};
+    private static final String[] ROW_TYPES = {"MAP", "MAP_COPIED_KEYS", "CONTENT_ROW"};
+
+    private ContentRowFootprint() {
+    }
+
+    /**
+     * Print the retained bytes per content.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        System.out.println(VM.current().details());
+        System.out.printf("%-16s %8s %14s%n", "rowType", "columns", "bytesPerRow");
+
+        for (int columns : COLUMNS) {
+            String[] names = new String[columns];
+            for (int c = 0; c < columns; c++) {
+                names[c] = "column" + c;
+            }
+            ContentLayout layout = ContentLayout.of(names);
+
+            String[][] values = new String[ROWS][columns];
+            for (int r = 0; r < ROWS; r++) {
+                for (int c = 0; c < columns; c++) {
+                    values[r][c] = "value-" + r + "-" + c;
+                }
+            }
+
+            long shared = GraphLayout.parseInstance(values, layout).totalSize();
+
+            for (String rowType : ROW_TYPES) {
+                List<Map<String, String>> rows = createRows(rowType, layout, values);
+                // Note:
+                // GraphLayout#subtract matches the objects by address, and a GC between the walks moves them. So the
+                // totals are subtracted instead.
+                long retained = GraphLayout.parseInstance(rows, values, layout).totalSize() - shared;
+
+                System.out.printf("%-16s %8d %14.1f%n", rowType, columns, (double) retained / ROWS);
+            }
+        }
+    }
+
+    private static List<Map<String, String>> createRows(String rowType, ContentLayout layout, String[][] values) {
+        List<Map<String, String>> rows = new ArrayList<>(values.length);
+
+        for (String[] row : values) {
+            switch (rowType) {
+                case "MAP" -> {
+                    Map<String, String> content = new HashMap<>();
+                    for (int c = 0; c < row.length; c++) {
+                        content.put(layout.getName(c), row[c]);
+                    }
+                    rows.add(content);
+                }
+                case "MAP_COPIED_KEYS" -> {
+                    Map<String, String> content = new HashMap<>();
+                    for (int c = 0; c < row.length; c++) {
+                        content.put(new String(layout.getName(c)), row[c]);
+                    }
+                    rows.add(content);
+                }
+                default ->
+                    rows.add(layout.newRow(row));
+            }
+        }
+
+        return rows;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin.benchmarks;
+
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import jp.mydns.projectk.safi.plugin.ExportOutcome;
+import jp.mydns.projectk.safi.plugin.ExportSource;
+import jp.mydns.projectk.safi.plugin.ExportSourceContainer;
+import jp.mydns.projectk.safi.plugin.ExporterPlugin.AbstractExporterPlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per source overhead of the stream iteration of {@link AbstractExporterPlugin#doExport(ExportSourceContainer)}.
+ * Scores are per source.
+ *
+ * <p>
+ * {@code streamSources} is the baseline without the final wrapper.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExporterExportBenchmark {
+
+    private static final int SOURCES = 10_000;
+
+    private InMemoryContainer sources;
+    private StreamExporter streamExporter;
+    private ChunkExporter chunkExporter;
+
+    /**
+     * Prepare the synthetic sources.
+     */
+    @Setup
+    public void setUp() {
+        List<ExportSource> list = new ArrayList<>(SOURCES);
+        for (int i = 0; i < SOURCES; i++) {
+            list.add(new InMemorySource("id" + i, JsonValue.EMPTY_JSON_OBJECT));
+        }
+
+        sources = new InMemoryContainer(list);
+        streamExporter = new StreamExporter();
+        chunkExporter = new ChunkExporter();
+        chunkExporter.setPluginProperties(JsonValue.EMPTY_JSON_OBJECT);
+    }
+
+    /**
+     * Export each source of the stream through the final wrapper.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    @OperationsPerInvocation(SOURCES)
+    public void doExport() throws InterruptedException {
+        streamExporter.doExport(sources);
+    }
+
+    /**
+     * Export by chunk through the final wrapper.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    @OperationsPerInvocation(SOURCES)
+    public void doExportInChunks() throws InterruptedException {
+        chunkExporter.doExport(sources);
+    }
+
+    /**
+     * Iterate the stream without the final wrapper.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    @OperationsPerInvocation(SOURCES)
+    public void streamSources(Blackhole bh) {
+        try (Stream<ExportSource> stream = sources.stream()) {
+            stream.forEach(bh::consume);
+        }
+    }
+
+    /**
+     * Exporter that records all sources as success.
+     */
+    static class StreamExporter extends AbstractExporterPlugin {
+
+        @Override
+        public void doExportProcessing(ExportSourceContainer sources) {
+            try (Stream<ExportSource> stream = sources.stream()) {
+                stream.forEach(s -> s.recordAsSuccess(List.of()));
+            }
+        }
+    }
+
+    /**
+     * Exporter that returns the success outcomes by chunk.
+     */
+    static class ChunkExporter extends AbstractExporterPlugin {
+
+        @Override
+        public void doExportProcessing(ExportSourceContainer sources) throws InterruptedException {
+            exportInChunks(sources, chunk -> chunk.stream().map(s -> ExportOutcome.success(s.getId(), List.of()))
+                .toList());
+        }
+    }
+
+    /**
+     * Container on the heap.
+     */
+    static class InMemoryContainer implements ExportSourceContainer {
+
+        private final List<ExportSource> list;
+        private final Map<String, ExportSource> map = new LinkedHashMap<>();
+
+        InMemoryContainer(List<ExportSource> list) {
+            this.list = list;
+            list.forEach(s -> map.put(s.getId(), s));
+        }
+
+        @Override
+        public Stream<ExportSource> stream() {
+            return list.stream();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return list.isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public boolean containsKey(String key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return map.keySet();
+        }
+
+        @Override
+        public ExportSource get(String key) {
+            return map.get(key);
+        }
+    }
+
+    /**
+     * Source that discards the outcome.
+     */
+    record InMemorySource(String getId, JsonObject getValue) implements ExportSource {
+
+        @Override
+        public JsonObject getPrevious() {
+            return null;
+        }
+    }
+}
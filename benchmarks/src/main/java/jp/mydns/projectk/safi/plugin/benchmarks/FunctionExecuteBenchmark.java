@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jp.mydns.projectk.formula.Function.Argument;
+import jp.mydns.projectk.formula.Function.ArgumentScheme;
+import jp.mydns.projectk.safi.plugin.FunctionPlugin.AbstractFunctionPlugin;
+import jp.mydns.projectk.safi.plugin.PluginUnknownException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of the argument validation and the exception translation of {@link AbstractFunctionPlugin}.
+ *
+ * <p>
+ * The arguments and the argument scheme are dynamic proxies, so the scheme costs a reflective call per validation, as a
+ * stand-in for a real validation. Like the arguments of a real host, each row has new argument objects with identity
+ * equality, and the rows repeat {@value #DISTINCT_VALUES} distinct values. The pure function keys its cache by the
+ * values, so {@code executeCached} hits the cache except for the first occurrence of each value. Run with
+ * {@code -prof gc} to see the allocation of each execution.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FunctionExecuteBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int DISTINCT_VALUES = 16;
+
+    private Argument arg;
+    private Argument[] rows;
+    private int row;
+    private StubFunction function;
+    private StubFunction pureFunction;
+    private StubFunction failingFunction;
+    private List<Argument[]> batch;
+
+    /**
+     * Prepare the functions and the arguments.
+     */
+    @Setup
+    public void setUp() {
+        arg = argument("value");
+        rows = new Argument[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            rows[i] = argument("value-" + i % DISTINCT_VALUES);
+        }
+
+        function = new StubFunction(false, false);
+        pureFunction = new StubFunction(true, false);
+        failingFunction = new StubFunction(false, true);
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (Argument r : rows) {
+            batch.add(new Argument[]{r});
+        }
+    }
+
+    /**
+     * Execute by the varargs.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public String executeVarargs() {
+        return function.execute(new Argument[]{arg});
+    }
+
+    /**
+     * Execute a pure function over the rows, answered from the result cache keyed by the argument values.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public String executeCached() {
+        Argument r = rows[row];
+        row = (row + 1) % BATCH_SIZE;
+        return pureFunction.execute(new Argument[]{r});
+    }
+
+    /**
+     * Execute by batch. Scores are per tuple.
+     *
+     * @return the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<String> executeAll() {
+        return function.executeAll(batch);
+    }
+
+    /**
+     * Execute a function that throws an unexpected exception, replaced by {@code PluginUnknownException}.
+     *
+     * @return the exception
+     */
+    @Benchmark
+    public Object executeFailure() {
+        try {
+            return failingFunction.execute(new Argument[]{arg});
+        } catch (PluginUnknownException ex) {
+            return ex;
+        }
+    }
+
+    private static Argument argument(String value) {
+        return proxy(ValuedArgument.class, value);
+    }
+
+    private static <T> T proxy(Class<T> type) {
+        return proxy(type, null);
+    }
+
+    private static <T> T proxy(Class<T> type, String value) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, m, a) -> {
+            return switch (m.getName()) {
+                case "requireValid" ->
+                    a[0];
+                case "value" ->
+                    value;
+                case "equals" ->
+                    p == a[0];
+                case "hashCode" ->
+                    System.identityHashCode(p);
+                case "toString" ->
+                    type.getSimpleName();
+                default ->
+                    throw new UnsupportedOperationException(m.getName());
+            };
+        }));
+    }
+
+    /**
+     * Argument that has a resolved value, as a stand-in for a real argument.
+     */
+    public interface ValuedArgument extends Argument {
+
+        /**
+         * Get the resolved value.
+         *
+         * @return the value
+         */
+        String value();
+    }
+
+    /**
+     * Function that returns a constant.
+     */
+    static class StubFunction extends AbstractFunctionPlugin {
+
+        private static final ArgumentScheme SCHEME = proxy(ArgumentScheme.class);
+
+        private final boolean pure;
+        private final boolean failing;
+
+        StubFunction(boolean pure, boolean failing) {
+            this.pure = pure;
+            this.failing = failing;
+        }
+
+        @Override
+        public String getName() {
+            return "stub";
+        }
+
+        @Override
+        public ArgumentScheme getArgumentScheme() {
+            return SCHEME;
+        }
+
+        @Override
+        public boolean isPure() {
+            return pure;
+        }
+
+        @Override
+        protected Object cacheKey(Argument... validArgs) {
+            return ((ValuedArgument) validArgs[0]).value();
+        }
+
+        @Override
+        protected String calculate(Argument... args) {
+            if (failing) {
+                throw new IllegalStateException();
+            }
+            return "result";
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import jp.mydns.projectk.safi.plugin.ContentLayout;
+import jp.mydns.projectk.safi.plugin.ImportResultContainer;
+import jp.mydns.projectk.safi.plugin.ImporterPlugin.AbstractImporterPlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per content overhead of the carry-in of {@link AbstractImporterPlugin}. Scores are per content.
+ *
+ * <p>
+ * {@code fetchContents} is the baseline without the final wrapper. {@code createRows} measures the cost of creating a
+ * content by each row type. Run it with {@code -prof gc} to compare the allocation rate. It does not measure the
+ * retained size; {@link ContentRowFootprint} does.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImporterFetchBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int COLUMNS = 8;
+    private static final int BLOCK_SIZE = 1_000;
+
+    /**
+     * Type of the content.
+     */
+    @Param({"MAP", "CONTENT_ROW"})
+    public String rowType;
+
+    private String[][] values;
+    private ContentLayout layout;
+    private StubImporter importer;
+
+    /**
+     * Prepare the synthetic contents.
+     */
+    @Setup
+    public void setUp() {
+        String[] names = new String[COLUMNS];
+        for (int c = 0; c < COLUMNS; c++) {
+            names[c] = "column" + c;
+        }
+        layout = ContentLayout.of(names);
+
+        values = new String[ROWS][COLUMNS];
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                values[r][c] = "value-" + r + "-" + c;
+            }
+        }
+
+        importer = new StubImporter(createRows());
+    }
+
+    /**
+     * Carry-in through the final wrapper.
+     *
+     * @param bh the blackhole
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fetch(Blackhole bh) throws InterruptedException {
+        importer.fetch(bh::consume);
+    }
+
+    /**
+     * Carry-in by block through the final wrapper.
+     *
+     * @param bh the blackhole
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fetchBlocks(Blackhole bh) throws InterruptedException {
+        importer.fetchBlocks(bh::consume, BLOCK_SIZE);
+    }
+
+    /**
+     * Carry-in without the final wrapper.
+     *
+     * @param bh the blackhole
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fetchContents(Blackhole bh) {
+        importer.fetchContents(bh::consume);
+    }
+
+    /**
+     * Create the contents.
+     *
+     * @return the contents
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Map<String, String>> createRows() {
+        List<Map<String, String>> rows = new ArrayList<>(ROWS);
+
+        for (String[] row : values) {
+            if ("MAP".equals(rowType)) {
+                Map<String, String> content = new HashMap<>();
+                for (int c = 0; c < COLUMNS; c++) {
+                    content.put(layout.getName(c), row[c]);
+                }
+                rows.add(content);
+            } else {
+                rows.add(layout.newRow(row));
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Importer that carries-in the prepared contents.
+     */
+    static class StubImporter extends AbstractImporterPlugin {
+
+        private final List<Map<String, String>> rows;
+
+        StubImporter(List<Map<String, String>> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void fetchContents(Consumer<Map<String, String>> entrance) {
+            for (Map<String, String> row : rows) {
+                entrance.accept(row);
+            }
+        }
+
+        @Override
+        public void doPostProcessing(ImportResultContainer records) {
+        }
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Result reporter that passes the messages to the reporter of the plug-in caller asynchronously. Messages are put into
+ * a bounded lock-free ring buffer, and a background virtual thread drains them to the reporter of the plug-in caller.
+ * So the plug-in does not stall on a slow reporter, such as one that writes to a database.
+ *
+ * <p>
+ * Messages are passed in the reported order. The drain thread collapses consecutive duplicate messages drained at once
+ * into one message with the number of the repetitions, and suppresses the messages that exceed the rate limit. The
+ * numbers of the messages dropped by the overflow and suppressed by the rate limit are reported as a summary message.
+ *
+ * <p>
+ * It is opt-in. A plug-in caller that wants asynchronous reporting passes an {@code AsyncReporter} to
+ * {@link BatchPlugin#setReporter(Consumer)}, and closes it when the plug-in is no longer used.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * </ul>
+ * <p>
+ * Implementation notes.
+ * <ul>
+ * <li>The drain thread starts on demand and ends when it is idle for a while, so an idle reporter holds no
+ * thread.</li>
+ * <li>After closing, messages are passed to the reporter of the plug-in caller synchronously.</li>
+ * <li>An exception thrown by the reporter of the plug-in caller on the drain thread is ignored, so that the following
+ * messages are still passed. After closing, it is thrown to the caller of {@link #accept(String)}.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see BatchPlugin.AbstractBatchPlugin#setReporter(Consumer)
+ */
+public final class AsyncReporter implements Consumer<String>, AutoCloseable {
+
+    /**
+     * Default capacity of the buffer.
+     *
+     * @since 2.1.0
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final long POLL_INTERVAL_NANOS = 1_000_000L;
+    private static final long IDLE_TIMEOUT_NANOS = 1_000_000_000L;
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final Object NULL = new Object();
+
+    /**
+     * Policy for a message reported while the buffer is full.
+     *
+     * @author riru
+     * @version 2.1.0
+     * @since 2.1.0
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Drop the message. The number of the dropped messages is reported later.
+         *
+         * @since 2.1.0
+         */
+        DROP,
+        /**
+         * Wait until the buffer has a space. If interrupted while waiting, the message is dropped.
+         *
+         * @since 2.1.0
+         */
+        BLOCK
+    }
+
+    private final Consumer<String> downstream;
+    private final OverflowPolicy policy;
+    private final int maxMessagesPerSecond;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long head;
+    private volatile long delivered;
+    private volatile Thread drainer;
+    private volatile boolean closed;
+
+    // Used by the drain thread only.
+    private long reportedDrops;
+    private long suppressed;
+    private long windowStartedAt = System.nanoTime();
+    private int deliveredInWindow;
+
+    /**
+     * Constructor. Uses {@value #DEFAULT_CAPACITY} as the capacity, {@link OverflowPolicy#DROP} and no rate limit.
+     *
+     * @param downstream reporter of the plug-in caller
+     * @throws NullPointerException if {@code downstream} is {@code null}
+     * @since 2.1.0
+     */
+    public AsyncReporter(Consumer<String> downstream) {
+        this(downstream, DEFAULT_CAPACITY, OverflowPolicy.DROP, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param downstream reporter of the plug-in caller
+     * @param capacity capacity of the buffer. It is rounded up to a power of two, and is at least 2.
+     * @param policy policy for a message reported while the buffer is full
+     * @param maxMessagesPerSecond maximum number of the messages passed to {@code downstream} per second. If
+     * {@code 0}, no limit.
+     * @throws NullPointerException if {@code downstream} or {@code policy} is {@code null}
+     * @throws IllegalArgumentException if {@code capacity} is less than 1 or greater than {@code 2^30}, or if
+     * {@code maxMessagesPerSecond} is negative
+     * @since 2.1.0
+     */
+    public AsyncReporter(Consumer<String> downstream, int capacity, OverflowPolicy policy, int maxMessagesPerSecond) {
+        this.downstream = Objects.requireNonNull(downstream);
+        this.policy = Objects.requireNonNull(policy);
+
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity is out of range.");
+        }
+
+        if (maxMessagesPerSecond < 0) {
+            throw new IllegalArgumentException("Rate limit must not be negative.");
+        }
+
+        // Note:
+        // A slot of a single slot buffer has the same sequence whether it is filled or free, so at least 2 slots.
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    /**
+     * Report a message. It does not wait for the reporter of the plug-in caller.
+     *
+     * @param message the message. It may be {@code null}.
+     * @since 2.1.0
+     */
+    @Override
+    public void accept(String message) {
+        if (closed) {
+            downstream.accept(message);
+            return;
+        }
+
+        Object element = message == null ? NULL : message;
+
+        while (!offer(element)) {
+            if (policy == OverflowPolicy.DROP || Thread.currentThread().isInterrupted()) {
+                dropped.increment();
+                break;
+            }
+
+            startDrainer();
+            LockSupport.parkNanos(POLL_INTERVAL_NANOS);
+        }
+
+        startDrainer();
+    }
+
+    /**
+     * Wait until the messages reported before this call are passed to the reporter of the plug-in caller. If the
+     * current thread is interrupted, it returns without waiting and keeps the interrupted status.
+     *
+     * @since 2.1.0
+     */
+    public void flush() {
+        long target = tail.get();
+
+        while (delivered < target && !Thread.currentThread().isInterrupted()) {
+            startDrainer();
+            Thread t = drainer;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+            LockSupport.parkNanos(POLL_INTERVAL_NANOS);
+        }
+    }
+
+    /**
+     * Flush and close. After closing, messages are passed to the reporter of the plug-in caller synchronously. The
+     * drain thread reports the pending summary, and ends without waiting to be idle. It waits for the drain thread to
+     * end. If the current thread is interrupted, it returns without waiting and keeps the interrupted status.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        flush();
+
+        Thread t = drainer;
+        if (t != null) {
+            LockSupport.unpark(t);
+
+            try {
+                t.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Get the number of the messages dropped because the buffer was full.
+     *
+     * @return number of the dropped messages
+     * @since 2.1.0
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private boolean offer(Object element) {
+        long pos = tail.get();
+
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = element;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private Object poll() {
+        long pos = head;
+        int index = (int) pos & mask;
+
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+
+        Object element = buffer[index];
+        buffer[index] = null;
+        sequences.set(index, pos + buffer.length);
+        head = pos + 1;
+
+        return element;
+    }
+
+    private void startDrainer() {
+        if (!draining.get() && draining.compareAndSet(false, true)) {
+            drainer = Thread.ofVirtual().name("safi-reporter").start(this::drain);
+        }
+    }
+
+    private void drain() {
+        long idleSince = System.nanoTime();
+
+        while (true) {
+            int drained = drainBatch();
+            reportSummary(false);
+
+            // Note:
+            // Publish the progress after each batch, so that flush does not wait for other threads to stop reporting.
+            delivered = head;
+
+            if (drained > 0) {
+                idleSince = System.nanoTime();
+                continue;
+            }
+
+            if (closed || System.nanoTime() - idleSince > IDLE_TIMEOUT_NANOS) {
+                // Note:
+                // Report the summary before ending, even if the current window of the rate limit is not over,
+                // so that it is not lost by closing.
+                reportSummary(true);
+                draining.set(false);
+
+                if (head == tail.get() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+
+                idleSince = System.nanoTime();
+            }
+
+            LockSupport.parkNanos(POLL_INTERVAL_NANOS);
+        }
+    }
+
+    private int drainBatch() {
+        int drained = 0;
+        Object last = null;
+        int repeats = 0;
+        Object element;
+
+        while (drained < buffer.length && (element = poll()) != null) {
+            drained++;
+
+            if (element.equals(last)) {
+                repeats++;
+                continue;
+            }
+
+            if (last != null) {
+                deliver(last, repeats);
+            }
+
+            last = element;
+            repeats = 1;
+        }
+
+        if (last != null) {
+            deliver(last, repeats);
+        }
+
+        return drained;
+    }
+
+    private void deliver(Object element, int count) {
+        String message = element == NULL ? null : (String) element;
+        deliver(count == 1 ? message : message + " (repeated " + count + " times)", count);
+    }
+
+    private void deliver(String message, int count) {
+        if (maxMessagesPerSecond > 0) {
+            long now = System.nanoTime();
+
+            if (now - windowStartedAt >= RATE_WINDOW_NANOS) {
+                windowStartedAt = now;
+                deliveredInWindow = 0;
+                reportSummary(false);
+            }
+
+            if (deliveredInWindow >= maxMessagesPerSecond) {
+                suppressed += count;
+                return;
+            }
+
+            deliveredInWindow++;
+        }
+
+        deliverQuietly(message);
+    }
+
+    private void reportSummary(boolean ending) {
+        long drops = dropped.sum();
+
+        if (drops > reportedDrops) {
+            deliverQuietly((drops - reportedDrops) + " messages were dropped because the reporter was full.");
+            reportedDrops = drops;
+        }
+
+        if (suppressed > 0 && (ending || System.nanoTime() - windowStartedAt >= RATE_WINDOW_NANOS)) {
+            deliverQuietly(suppressed + " messages were suppressed by the rate limit.");
+            suppressed = 0;
+        }
+    }
+
+    private void deliverQuietly(String message) {
+        try {
+            downstream.accept(message);
+        } catch (RuntimeException ignore) {
+            // Note:
+            // The drain thread must continue even if the reporter of the plug-in caller fails.
+        }
+    }
+}
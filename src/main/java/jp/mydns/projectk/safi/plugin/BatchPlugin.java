@@ -35,7 +35,7 @@ import java.util.function.Consumer;
  * Plug-in interface for batch-processing.
  *
  * @author riru
- * @version 2.0.3
+ * @version 2.1.0
  * @since 2.0.0
  */
 public interface BatchPlugin extends SafiPlugin {
@@ -54,6 +54,7 @@ public interface BatchPlugin extends SafiPlugin {
      *
      * @param props properties
      * @throws NullPointerException if {@code props} is {@code null}
+     * @throws IllegalArgumentException if {@code props} is invalid for the plug-in
      * @since 2.0.0
      */
     void setPluginProperties(JsonObject props);
@@ -77,17 +78,56 @@ public interface BatchPlugin extends SafiPlugin {
      */
     void setReporter(Consumer<String> reporter);
 
+    /**
+     * Get the run context. The plug-in reads the time budget from it and reports the progress to it.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation has no state. It returns a new context without deadline on each call, so the
+     * progress reported to it is discarded and a context set by {@link #setRunContext(RunContext)} is never returned.
+     * A plug-in that implements this interface directly must override both methods to honor the deadline of the
+     * caller. {@link AbstractBatchPlugin} does it.</li>
+     * </ul>
+     *
+     * @return the run context. It never {@code null}.
+     * @since 2.1.0
+     */
+    default RunContext getRunContext() {
+        return RunContext.unbounded();
+    }
+
+    /**
+     * Set the run context. This method is used by the plug-in caller before each run.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation only checks the argument and discards it, so the deadline of the caller is ignored.
+     * Override it together with {@link #getRunContext()}.</li>
+     * </ul>
+     *
+     * @param context the run context
+     * @throws NullPointerException if {@code context} is {@code null}
+     * @since 2.1.0
+     */
+    default void setRunContext(RunContext context) {
+        Objects.requireNonNull(context);
+    }
+
     /**
      * Abstract implements of the {@code BatchPlugin}.
      *
      * @author riru
-     * @version 2.0.0
+     * @version 2.1.0
      * @since 2.0.0
      */
     public static abstract class AbstractBatchPlugin implements BatchPlugin {
 
         private JsonObject props = null;
+        private Record typedProps = null;
         private Consumer<String> reporter = null;
+        private volatile RunContext context = RunContext.unbounded();
 
         /**
          * {@inheritDoc}
@@ -103,8 +143,16 @@ public interface BatchPlugin extends SafiPlugin {
          * Set plug-in properties. This method is used by the plug-in loader. This function can only be executed once.
          * Also, this is done by the plugin loader, so there's nothing you can actually do.
          *
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>If {@link #getPropertiesType()} returns a record class, the properties are bound to it by
+         * {@link PluginProperties#bind(JsonObject, Class)}, so that invalid properties fail here.</li>
+         * </ul>
+         *
          * @param props properties
          * @throws NullPointerException if {@code props} is {@code null}
+         * @throws IllegalArgumentException if {@code props} cannot be bound to {@link #getPropertiesType()}
          * @throws IllegalStateException if already sets a properties
          * @since 2.0.0
          */
@@ -116,9 +164,51 @@ public interface BatchPlugin extends SafiPlugin {
                 throw new IllegalStateException("Plug-in properties are already set.");
             }
 
+            Class<? extends Record> type = getPropertiesType();
+
+            if (type != null) {
+                this.typedProps = PluginProperties.bind(props, type);
+            }
+
             this.props = props;
         }
 
+        /**
+         * Get the record class that the plug-in properties are bound to. Override this to read the properties by
+         * {@link #getTypedProperties(Class)}.
+         *
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>Default implementation returns {@code null}, that is the properties are not bound.</li>
+         * </ul>
+         *
+         * @return the record class. {@code null} if not bound.
+         * @since 2.1.0
+         */
+        protected Class<? extends Record> getPropertiesType() {
+            return null;
+        }
+
+        /**
+         * Get the plug-in properties bound to the record class. The record is created once by
+         * {@link #setPluginProperties(JsonObject)}, so reading it on the hot path is only a field read.
+         *
+         * @param <T> record type
+         * @param type the record class returned by {@link #getPropertiesType()}
+         * @return the bound properties
+         * @throws IllegalStateException if the properties are not set yet, or are not bound
+         * @throws ClassCastException if {@code type} is not the bound record class
+         * @since 2.1.0
+         */
+        protected final <T extends Record> T getTypedProperties(Class<T> type) {
+            if (typedProps == null) {
+                throw new IllegalStateException("Plug-in properties are not bound.");
+            }
+
+            return type.cast(typedProps);
+        }
+
         /**
          * {@inheritDoc}
          *
@@ -134,6 +224,13 @@ public interface BatchPlugin extends SafiPlugin {
          * Set the result reporter. This method is used by the plug-in loader. This function can only be executed once.
          * Also, this is done by the plugin loader, so there's nothing you can actually do.
          *
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>The reporter is used as it is. If it is an {@link AsyncReporter}, the final wrappers of the plug-in
+         * operations flush it before returning. The plug-in caller that passed it closes it.</li>
+         * </ul>
+         *
          * @param reporter result reporter
          * @throws NullPointerException if {@code reporter} is {@code null}
          * @throws IllegalStateException if already sets a reporter
@@ -150,6 +247,37 @@ public interface BatchPlugin extends SafiPlugin {
             this.reporter = reporter;
         }
 
+        /**
+         * Wait until the reported messages are passed to the result reporter.
+         *
+         * @since 2.1.0
+         */
+        final void flushReporter() {
+            if (reporter instanceof AsyncReporter r) {
+                r.flush();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @since 2.1.0
+         */
+        @Override
+        public final RunContext getRunContext() {
+            return context;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @since 2.1.0
+         */
+        @Override
+        public final void setRunContext(RunContext context) {
+            this.context = Objects.requireNonNull(context);
+        }
+
         /**
          * Throw {@code InterruptedException} if current thread is interrupted.
          *
@@ -161,5 +289,18 @@ public interface BatchPlugin extends SafiPlugin {
                 throw new InterruptedException();
             }
         }
+
+        /**
+         * Throw {@code InterruptedException} if current thread is interrupted, or {@code DeadlineExceededException} if
+         * the deadline of the run context has passed.
+         *
+         * @throws InterruptedException if current thread is interrupted
+         * @throws DeadlineExceededException if the deadline has passed
+         * @since 2.1.0
+         */
+        protected final void throwIfInterruptedOrExpired() throws InterruptedException {
+            throwIfInterrupted();
+            context.throwIfExpired();
+        }
     }
 }
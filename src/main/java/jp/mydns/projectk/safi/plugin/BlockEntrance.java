@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Carry-in entrance that gathers the contents carried in one by one into blocks. It is used to bridge a content
+ * fetching of per content to a carry-in of per block.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is not thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class BlockEntrance implements Consumer<Map<String, String>> {
+
+    private final Consumer<List<Map<String, String>>> entrance;
+    private final int blockSize;
+    private List<Map<String, String>> block;
+
+    /**
+     * Constructor.
+     *
+     * @param entrance carry-in entrance of the block
+     * @param blockSize number of contents per block
+     * @throws NullPointerException if {@code entrance} is {@code null}
+     * @throws IllegalArgumentException if {@code blockSize} is less than 1
+     * @since 2.1.0
+     */
+    BlockEntrance(Consumer<List<Map<String, String>>> entrance, int blockSize) {
+        this.entrance = Objects.requireNonNull(entrance);
+        this.blockSize = requireValidBlockSize(blockSize);
+        this.block = new ArrayList<>(blockSize);
+    }
+
+    /**
+     * Add a content to the current block. Carry-in the block if it reaches the block size.
+     *
+     * @param content fetched content
+     * @since 2.1.0
+     */
+    @Override
+    public void accept(Map<String, String> content) {
+        block.add(content);
+
+        if (block.size() >= blockSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Carry-in the current block if it has any content.
+     *
+     * @since 2.1.0
+     */
+    void flush() {
+        if (block.isEmpty()) {
+            return;
+        }
+
+        // Note:
+        // Block is handed over to the entrance, so do not reuse it.
+        List<Map<String, String>> full = block;
+        block = new ArrayList<>(blockSize);
+        entrance.accept(full);
+    }
+
+    /**
+     * Validate the block size.
+     *
+     * @param blockSize number of contents per block
+     * @return {@code blockSize}
+     * @throws IllegalArgumentException if {@code blockSize} is less than 1
+     * @since 2.1.0
+     */
+    static int requireValidBlockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+
+        return blockSize;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream that reads a byte buffer without copying it.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is not thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buf;
+
+    /**
+     * Constructor.
+     *
+     * @param buf source buffer. It is read from its position to its limit.
+     * @since 2.1.0
+     */
+    ByteBufferInputStream(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int read() {
+        return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!buf.hasRemaining()) {
+            return -1;
+        }
+
+        int n = Math.min(len, buf.remaining());
+        buf.get(b, off, n);
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, buf.remaining()));
+        buf.position(buf.position() + skipped);
+        return skipped;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int available() {
+        return buf.remaining();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Meter of the content carry-in. Counts the contents that passed through the carry-in entrance, and measures the
+ * carry-in throughput. Can be used for both the per content carry-in of {@link ImporterPlugin#fetch(Consumer)} and
+ * the per block carry-in of {@link ImporterPlugin#fetchBlocks(Consumer, int)}.
+ *
+ * <p>
+ * Usage.
+ * <pre>{@code
+ * CarryInMeter meter = new CarryInMeter();
+ * plugin.fetchBlocks(meter.measureBlocks(entrance), 1000);
+ * double throughput = meter.getContentsPerSecond();
+ * }</pre>
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class CarryInMeter {
+
+    private final LongAdder contents = new LongAdder();
+    private final LongAdder carryIns = new LongAdder();
+    private final long startedAt;
+
+    /**
+     * Constructor. Measuring starts at this time.
+     *
+     * @since 2.1.0
+     */
+    public CarryInMeter() {
+        this.startedAt = System.nanoTime();
+    }
+
+    /**
+     * Wrap a per content carry-in entrance to measure it.
+     *
+     * @param entrance carry-in entrance of the fetched content
+     * @return measured carry-in entrance
+     * @throws NullPointerException if {@code entrance} is {@code null}
+     * @since 2.1.0
+     */
+    public Consumer<Map<String, String>> measure(Consumer<Map<String, String>> entrance) {
+        Objects.requireNonNull(entrance);
+
+        return c -> {
+            entrance.accept(c);
+            contents.increment();
+            carryIns.increment();
+        };
+    }
+
+    /**
+     * Wrap a per block carry-in entrance to measure it.
+     *
+     * @param entrance carry-in entrance of the fetched contents
+     * @return measured carry-in entrance
+     * @throws NullPointerException if {@code entrance} is {@code null}
+     * @since 2.1.0
+     */
+    public Consumer<List<Map<String, String>>> measureBlocks(Consumer<List<Map<String, String>>> entrance) {
+        Objects.requireNonNull(entrance);
+
+        return b -> {
+            int size = b.size();
+            entrance.accept(b);
+            contents.add(size);
+            carryIns.increment();
+        };
+    }
+
+    /**
+     * Get number of the carried-in contents.
+     *
+     * @return number of the carried-in contents
+     * @since 2.1.0
+     */
+    public long getContents() {
+        return contents.sum();
+    }
+
+    /**
+     * Get number of the carry-in calls. It equals to {@link #getContents()} in case of the per content carry-in.
+     *
+     * @return number of the carry-in calls
+     * @since 2.1.0
+     */
+    public long getCarryIns() {
+        return carryIns.sum();
+    }
+
+    /**
+     * Get elapsed time since start of measuring.
+     *
+     * @return elapsed time
+     * @since 2.1.0
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Get the carry-in throughput.
+     *
+     * @return number of the carried-in contents per second
+     * @since 2.1.0
+     */
+    public double getContentsPerSecond() {
+        long elapsed = System.nanoTime() - startedAt;
+        return elapsed > 0 ? getContents() * 1_000_000_000d / elapsed : 0d;
+    }
+}
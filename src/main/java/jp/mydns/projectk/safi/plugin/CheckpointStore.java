@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Store of the last committed cursor of a resumable fetch. The cursor is an opaque value emitted by an importer, and
+ * the importer resumes the fetch from it at the next run.
+ *
+ * <p>
+ * Usage by the plug-in caller.
+ * <pre>{@code
+ * plugin.fetch(entrance, store.load().orElse(null), cursor -> {
+ *     // Make the contents carried-in so far durable, then commit the cursor.
+ *     store.commit(cursor);
+ * });
+ * store.clear();
+ * }</pre>
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * <li>A committed cursor must survive a restart of the process.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see ImporterPlugin#fetch(Consumer, String, Consumer)
+ * @see FileCheckpointStore
+ */
+public interface CheckpointStore {
+
+    /**
+     * Load the last committed cursor.
+     *
+     * @return the last committed cursor. It is empty if no cursor is committed.
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    Optional<String> load();
+
+    /**
+     * Commit a cursor. It replaces the previously committed cursor.
+     *
+     * @param cursor the cursor
+     * @throws NullPointerException if {@code cursor} is {@code null}
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    void commit(String cursor);
+
+    /**
+     * Clear the committed cursor. Call this when the fetch is completed, so that the next run starts from the
+     * beginning.
+     *
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    void clear();
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Column layout of the fetched contents. An importer declares it once, and each content is carried-in as a
+ * {@link ContentRow} that shares it. Column names are interned and shared by all rows, so a row holds only its values.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is immutable and thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see ImporterPlugin#getContentLayout()
+ */
+public final class ContentLayout {
+
+    private final List<String> names;
+    private final Map<String, Integer> indexes;
+
+    private ContentLayout(String[] names) {
+        Map<String, Integer> idx = HashMap.newHashMap(names.length);
+
+        for (int i = 0; i < names.length; i++) {
+            names[i] = Objects.requireNonNull(names[i]).intern();
+
+            if (idx.putIfAbsent(names[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate column name. " + names[i]);
+            }
+        }
+
+        this.names = List.of(names);
+        this.indexes = Map.copyOf(idx);
+    }
+
+    /**
+     * Create a layout.
+     *
+     * @param names column names
+     * @return the layout
+     * @throws NullPointerException if {@code names} is {@code null} or if contains {@code null} in {@code names}
+     * @throws IllegalArgumentException if {@code names} contains duplicate names
+     * @since 2.1.0
+     */
+    public static ContentLayout of(String... names) {
+        return new ContentLayout(names.clone());
+    }
+
+    /**
+     * Create a layout.
+     *
+     * @param names column names
+     * @return the layout
+     * @throws NullPointerException if {@code names} is {@code null} or if contains {@code null} in {@code names}
+     * @throws IllegalArgumentException if {@code names} contains duplicate names
+     * @since 2.1.0
+     */
+    public static ContentLayout of(List<String> names) {
+        return new ContentLayout(names.toArray(String[]::new));
+    }
+
+    /**
+     * Get number of the columns.
+     *
+     * @return number of the columns
+     * @since 2.1.0
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Get all column names in column order.
+     *
+     * @return column names. It is unmodifiable.
+     * @since 2.1.0
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Get a column name.
+     *
+     * @param index column index
+     * @return column name
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     * @since 2.1.0
+     */
+    public String getName(int index) {
+        return names.get(index);
+    }
+
+    /**
+     * Get a column index.
+     *
+     * @param name column name
+     * @return column index. Returns {@code -1} if not exists.
+     * @since 2.1.0
+     */
+    public int indexOf(Object name) {
+        Integer index = name != null ? indexes.get(name) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Create a row of this layout.
+     *
+     * @param values column values in column order. A {@code null} value represents that the column is absent.
+     * @return the row
+     * @throws NullPointerException if {@code values} is {@code null}
+     * @throws IllegalArgumentException if length of {@code values} is not equal to number of the columns
+     * @since 2.1.0
+     */
+    public ContentRow newRow(String... values) {
+        if (values.length != names.size()) {
+            throw new IllegalArgumentException("Number of values does not match the layout.");
+        }
+
+        return new ContentRow(this, values.clone());
+    }
+
+    /**
+     * Create a row of this layout from a content.
+     *
+     * @param content content value
+     * @return the row
+     * @throws NullPointerException if {@code content} is {@code null}
+     * @throws IllegalArgumentException if {@code content} contains a name that is not in this layout
+     * @since 2.1.0
+     */
+    public ContentRow newRow(Map<String, String> content) {
+        String[] values = new String[names.size()];
+
+        content.forEach((k, v) -> {
+            int index = indexOf(k);
+
+            if (index < 0) {
+                throw new IllegalArgumentException("Column is not in the layout. " + k);
+            }
+
+            values[index] = v;
+        });
+
+        return new ContentRow(this, values);
+    }
+
+    /**
+     * Returns a string representation.
+     *
+     * @return a string representation
+     * @since 2.1.0
+     */
+    @Override
+    public String toString() {
+        return "ContentLayout" + Arrays.toString(names.toArray());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Content of a {@link ContentLayout}. It holds only the values in an array, and column names are shared with the
+ * layout. It is a {@code Map} of column name and value, so it can be carried-in through the usual carry-in entrance.
+ * The receiver that knows the layout can read the values by column index without a map lookup.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is immutable and thread-safe.</li>
+ * <li>A column of {@code null} value is absent from the map.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class ContentRow extends AbstractMap<String, String> {
+
+    private final ContentLayout layout;
+    private final String[] values;
+    private final int size;
+
+    ContentRow(ContentLayout layout, String[] values) {
+        int n = 0;
+
+        for (String v : values) {
+            if (v != null) {
+                n++;
+            }
+        }
+
+        this.layout = layout;
+        this.values = values;
+        this.size = n;
+    }
+
+    /**
+     * Get the layout of this row.
+     *
+     * @return the layout
+     * @since 2.1.0
+     */
+    public ContentLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Get a column value by column index.
+     *
+     * @param index column index
+     * @return column value. Returns {@code null} if absent.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     * @since 2.1.0
+     */
+    public String get(int index) {
+        return values[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public String get(Object key) {
+        int index = layout.indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new EntrySet();
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new Iterator<>() {
+                private int next = skipAbsent(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < values.length;
+                }
+
+                @Override
+                public Map.Entry<String, String> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    int index = next;
+                    next = skipAbsent(index + 1);
+                    return new SimpleImmutableEntry<>(layout.getName(index), values[index]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private int skipAbsent(int from) {
+            int i = from;
+
+            while (i < values.length && values[i] == null) {
+                i++;
+            }
+
+            return i;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Carry-in entrance of an incremental fetch. Besides the changed contents, it receives the deletion markers of the
+ * contents deleted from the data source.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see ImporterPlugin#fetchDelta(DeltaEntrance, String)
+ */
+public interface DeltaEntrance extends Consumer<Map<String, String>> {
+
+    /**
+     * Carry-in a changed content. One carry-in represents for one added or updated content.
+     *
+     * @param content the changed content
+     * @since 2.1.0
+     */
+    @Override
+    void accept(Map<String, String> content);
+
+    /**
+     * Carry-in a deletion marker. One carry-in represents for one deleted content.
+     *
+     * @param content the deleted content. It needs only the values that identify the content.
+     * @since 2.1.0
+     */
+    void acceptDeletion(Map<String, String> content);
+}
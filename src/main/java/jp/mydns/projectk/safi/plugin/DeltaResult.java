@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+/**
+ * Result of an incremental fetch.
+ *
+ * @param watermark the new high-water mark. The plug-in caller hands it to the next incremental fetch. If
+ * {@code null}, the next fetch starts without a watermark.
+ * @param snapshot {@code true} if all contents of the data source were carried-in. In that case, contents that were
+ * not carried-in are deleted. If {@code false}, only the changes since the previous watermark were carried-in, so
+ * contents that were not carried-in are unchanged.
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see ImporterPlugin#fetchDelta(DeltaEntrance, String)
+ */
+public record DeltaResult(String watermark, boolean snapshot) {
+
+    /**
+     * Create a result of a fetch that carried-in all contents.
+     *
+     * @param watermark the new high-water mark. It may be {@code null}.
+     * @return the result
+     * @since 2.1.0
+     */
+    public static DeltaResult ofSnapshot(String watermark) {
+        return new DeltaResult(watermark, true);
+    }
+
+    /**
+     * Create a result of a fetch that carried-in only the changes.
+     *
+     * @param watermark the new high-water mark. It may be {@code null}.
+     * @return the result
+     * @since 2.1.0
+     */
+    public static DeltaResult ofDelta(String watermark) {
+        return new DeltaResult(watermark, false);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of the export of a content.
+ *
+ * @param id content id
+ * @param status export status
+ * @param messages processing result message for the content
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public record ExportOutcome(String id, Status status, List<String> messages) {
+
+    /**
+     * Constructor.
+     *
+     * @param id content id
+     * @param status export status
+     * @param messages processing result message for the content
+     * @throws NullPointerException if any argument is {@code null} or if contains {@code null} in {@code messages}
+     * @since 2.1.0
+     */
+    public ExportOutcome {
+        Objects.requireNonNull(id);
+        Objects.requireNonNull(status);
+        messages = List.copyOf(messages);
+    }
+
+    /**
+     * Create a success outcome.
+     *
+     * @param id content id
+     * @param messages processing result message for the content
+     * @return success outcome
+     * @throws NullPointerException if any argument is {@code null} or if contains {@code null} in {@code messages}
+     * @since 2.1.0
+     */
+    public static ExportOutcome success(String id, List<String> messages) {
+        return new ExportOutcome(id, Status.SUCCESS, messages);
+    }
+
+    /**
+     * Create a failure outcome.
+     *
+     * @param id content id
+     * @param messages processing result message for the content
+     * @return failure outcome
+     * @throws NullPointerException if any argument is {@code null} or if contains {@code null} in {@code messages}
+     * @since 2.1.0
+     */
+    public static ExportOutcome failure(String id, List<String> messages) {
+        return new ExportOutcome(id, Status.FAILURE, messages);
+    }
+
+    /**
+     * Export status.
+     *
+     * @author riru
+     * @version 2.1.0
+     * @since 2.1.0
+     */
+    public enum Status {
+
+        /**
+         * Export succeeded.
+         *
+         * @since 2.1.0
+         */
+        SUCCESS,
+        /**
+         * Export failed.
+         *
+         * @since 2.1.0
+         */
+        FAILURE;
+    }
+}
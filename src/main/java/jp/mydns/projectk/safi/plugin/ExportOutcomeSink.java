@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sink that records the export outcomes of many contents at once. Recording of one call can be committed by one
+ * transaction or one sequential write, so it is suitable for a destination that returns the results of many contents
+ * by one response.
+ *
+ * <p>
+ * Recording an outcome by this is equivalent to recording it by {@link ExportSource#recordAsSuccess(List)} or
+ * {@link ExportSource#recordAsFailure(List)}.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * <li>If it is called outside the plug-in that processes the export, do nothing.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see ExportSourceContainer#getOutcomeSink()
+ */
+@FunctionalInterface
+public interface ExportOutcomeSink {
+
+    /**
+     * Record the outcomes.
+     *
+     * @param outcomes export outcomes
+     * @throws NullPointerException if {@code outcomes} is {@code null} or if contains {@code null} in
+     * {@code outcomes}
+     * @throws IllegalArgumentException if an outcome of the content that does not exist is contained
+     * @throws IllegalStateException if a content is already recorded
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    void record(List<ExportOutcome> outcomes);
+
+    /**
+     * Create a sink that records each outcome by the per content methods of {@link ExportSource}. It keeps a
+     * container that supports only the per content recording working with this.
+     *
+     * @param sources exportation contents source
+     * @return the sink
+     * @throws NullPointerException if {@code sources} is {@code null}
+     * @since 2.1.0
+     */
+    static ExportOutcomeSink perSource(ExportSourceContainer sources) {
+        Objects.requireNonNull(sources);
+
+        return outcomes -> {
+            outcomes.forEach(Objects::requireNonNull);
+
+            for (ExportOutcome o : outcomes) {
+                ExportSource source = sources.get(o.id());
+
+                if (source == null) {
+                    throw new IllegalArgumentException("Content does not exist. " + o.id());
+                }
+
+                switch (o.status()) {
+                    case SUCCESS ->
+                        source.recordAsSuccess(o.messages());
+                    case FAILURE ->
+                        source.recordAsFailure(o.messages());
+                }
+            }
+        };
+    }
+}
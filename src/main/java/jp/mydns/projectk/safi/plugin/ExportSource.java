@@ -36,10 +36,12 @@ import java.util.List;
  * Implementation requirements.
  * <ul>
  * <li>This class is immutable and thread-safe.</li>
+ * <li>{@link #recordAsSuccess(List)} and {@link #recordAsFailure(List)} may be called from several threads at the same
+ * time for different contents.</li>
  * </ul>
  *
  * @author riru
- * @version 1.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public interface ExportSource {
@@ -56,6 +58,12 @@ public interface ExportSource {
      * {@code true} if deletion.
      *
      * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>It should be decided without decoding the content value, such as by a deletion flag kept by the
+     * implementation.</li>
+     * </ul>
+     * <p>
      * Implementation notes.
      * <ul>
      * <li>Default implementation returns {@code true} if {@link #getValue()} is {@code null}.</li>
@@ -71,6 +79,13 @@ public interface ExportSource {
     /**
      * Get content value.
      *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>If the implementation keeps the serialized value, the returned object should decode a member only when it is
+     * read, so that the members not read by the plug-in are not decoded.</li>
+     * </ul>
+     *
      * @return content value. In case of deletion, it will be {@code null}.
      * @since 1.0.0
      */
@@ -79,11 +94,63 @@ public interface ExportSource {
     /**
      * Get previous content value.
      *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>If the implementation keeps the serialized value, the returned object should decode a member only when it is
+     * read, so that the members not read by the plug-in are not decoded.</li>
+     * </ul>
+     *
      * @return previous content value. If new, it will be {@code null}.
      * @since 1.0.0
      */
     JsonObject getPrevious();
 
+    /**
+     * Get the member-level difference from the previous content value to the content value.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>It should be computed once by the implementation, such as when the content is stored, rather than each time
+     * it is called.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation computes it from {@link #getPrevious()} and {@link #getValue()} each time.</li>
+     * </ul>
+     *
+     * @return the difference. If new, all members are added. In case of deletion, all members are removed.
+     * @since 2.1.0
+     */
+    default ValueDiff getDiff() {
+        return ValueDiff.of(getPrevious(), getValue());
+    }
+
+    /**
+     * {@code true} if the content value differs from the previous content value. A creation and a deletion are always
+     * changes, even if the value is an empty object.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>It should be decided without decoding the content value and the previous content value.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@code true} if it is a deletion, if only one of {@link #getPrevious()} and
+     * {@link #getValue()} is {@code null}, or if {@link #getDiff()} is not empty.</li>
+     * </ul>
+     *
+     * @return {@code true} if there is a change
+     * @since 2.1.0
+     */
+    default boolean hasChanges() {
+        return isDeletion() || (getPrevious() == null) != (getValue() == null) || !getDiff().isEmpty();
+    }
+
     /**
      * Record this content as success. Call this function if the export of this content success. After a series of
      * processes, it is recorded as a success in the database.
@@ -104,6 +171,7 @@ public interface ExportSource {
      * @throws IllegalStateException If already recorded
      * @throws UncheckedIOException if occurs I/O error
      * @since 1.0.0
+     * @see ExportOutcomeSink
      */
     default void recordAsSuccess(List<String> msgs) {
         // Do nothing
@@ -129,6 +197,7 @@ public interface ExportSource {
      * @throws IllegalStateException If already recorded
      * @throws UncheckedIOException if occurs I/O error
      * @since 1.0.0
+     * @see ExportOutcomeSink
      */
     default void recordAsFailure(List<String> msgs) {
         // Do nothing
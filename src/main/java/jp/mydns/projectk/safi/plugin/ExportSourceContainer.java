@@ -26,6 +26,10 @@
 package jp.mydns.projectk.safi.plugin;
 
 import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -39,7 +43,7 @@ import java.util.stream.Stream;
  * </ul>
  *
  * @author riru
- * @version 1.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public interface ExportSourceContainer {
@@ -47,6 +51,14 @@ public interface ExportSourceContainer {
     /**
      * Get all values stored in this.
      *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>The spliterator of the stream should report {@link java.util.Spliterator#SIZED} and
+     * {@link java.util.Spliterator#SUBSIZED}, and should split into halves of equal size, so that a parallel stream is
+     * processed efficiently.</li>
+     * </ul>
+     *
      * @return all values stored in this
      * @since 1.0.0
      */
@@ -94,4 +106,106 @@ public interface ExportSourceContainer {
      * @since 1.0.0
      */
     ExportSource get(String key);
+
+    /**
+     * Get all content ids. Unlike {@link #keySet()}, the ids are streamed lazily, so they do not need to be kept in
+     * memory.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>If the backing store keeps the ids sorted, the ids should be streamed in that order and the spliterator of
+     * the stream should report {@link java.util.Spliterator#SORTED}.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation streams {@link #keySet()}.</li>
+     * </ul>
+     *
+     * @return all content ids
+     * @throws UncheckedIOException if occurs I/O exception
+     * @since 2.1.0
+     */
+    default Stream<String> keys() {
+        return keySet().stream();
+    }
+
+    /**
+     * Get values associated with each of {@code keys} at once. Ids that do not exist are not contained in the result.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>The implementation should combine the lookups, so that the backing store is read sequentially rather than
+     * once per id.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation calls {@link #get(String)} for each id, and the result iterates in the order of
+     * {@code keys}.</li>
+     * </ul>
+     *
+     * @param keys content ids
+     * @return values associated with the ids, keyed by content id
+     * @throws NullPointerException if {@code keys} is {@code null}
+     * @throws UncheckedIOException if occurs I/O exception
+     * @since 2.1.0
+     */
+    default Map<String, ExportSource> getAll(Collection<String> keys) {
+        Objects.requireNonNull(keys);
+
+        Map<String, ExportSource> values = new LinkedHashMap<>();
+
+        for (String key : keys) {
+            ExportSource value = get(key);
+
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * {@code true} if this container resumes an interrupted export. In resume mode, {@link #stream()} streams only the
+     * sources that have no outcome recorded by the interrupted export, so that the export costs only the unfinished
+     * work. Other methods, such as {@link #get(String)}, access all sources as usual.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>To support resume mode, the implementation must persist each outcome durably as soon as it is recorded.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@code false}.</li>
+     * </ul>
+     *
+     * @return {@code true} if in resume mode
+     * @since 2.1.0
+     */
+    default boolean isResuming() {
+        return false;
+    }
+
+    /**
+     * Get the sink that records the export outcomes of many contents at once.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@link ExportOutcomeSink#perSource(ExportSourceContainer)}, that records each
+     * outcome by the per content methods of {@link ExportSource}.</li>
+     * </ul>
+     *
+     * @return the outcome sink
+     * @since 2.1.0
+     */
+    default ExportOutcomeSink getOutcomeSink() {
+        return ExportOutcomeSink.perSource(this);
+    }
 }
@@ -25,6 +25,17 @@
  */
 package jp.mydns.projectk.safi.plugin;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import jp.mydns.projectk.plugin.PluginExecutionException;
 import jp.mydns.projectk.safi.plugin.BatchPlugin.AbstractBatchPlugin;
 
@@ -33,7 +44,7 @@ import jp.mydns.projectk.safi.plugin.BatchPlugin.AbstractBatchPlugin;
  * contents to the outside.
  *
  * @author riru
- * @version 2.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public interface ExporterPlugin extends BatchPlugin {
@@ -41,6 +52,13 @@ public interface ExporterPlugin extends BatchPlugin {
     /**
      * Execute exporting.
      *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>If {@link ExportSourceContainer#isResuming()} is {@code true}, sources exported by the interrupted export are
+     * not streamed. Do not treat them as missing, such as by deleting them from the destination.</li>
+     * </ul>
+     *
      * @param sources exportation contents source.
      * @throws PluginExecutionException if processing cannot be continued
      * @throws InterruptedException if interrupted
@@ -52,11 +70,42 @@ public interface ExporterPlugin extends BatchPlugin {
      * Abstract implements of the {@code ExporterPlugin}.
      *
      * @author riru
-     * @version 2.0.0
+     * @version 2.1.0
      * @since 1.0.0
      */
     abstract class AbstractExporterPlugin extends AbstractBatchPlugin implements ExporterPlugin {
 
+        /**
+         * Key of the plug-in property that represents the number of the sources or chunks exported at the same time
+         * by {@link #exportInParallel(ExportSourceContainer, SourceExporter)} and
+         * {@link #exportInChunks(ExportSourceContainer, ChunkExporter)}. Its value is a positive integer, and defaults
+         * to {@code 1}.
+         *
+         * @since 2.1.0
+         */
+        public static final String EXPORT_CONCURRENCY = "exportConcurrency";
+
+        /**
+         * Key of the plug-in property that represents the number of the sources per chunk of
+         * {@link #exportInChunks(ExportSourceContainer, ChunkExporter)}. Its value is a positive integer, and defaults
+         * to {@value #DEFAULT_CHUNK_SIZE}.
+         *
+         * @since 2.1.0
+         */
+        public static final String EXPORT_CHUNK_SIZE = "exportChunkSize";
+
+        /**
+         * Default number of the sources per chunk.
+         *
+         * @since 2.1.0
+         */
+        public static final int DEFAULT_CHUNK_SIZE = 100;
+
+        /**
+         * Signal of the end of the parts. Each worker that takes it puts it back for the next worker.
+         */
+        private static final Spliterator<ExportSource> END = Spliterators.emptySpliterator();
+
         /**
          * {@inheritDoc}
          *
@@ -65,15 +114,21 @@ public interface ExporterPlugin extends BatchPlugin {
          */
         @Override
         public final void doExport(ExportSourceContainer sources) throws InterruptedException {
+            Instrumentation.Probe probe = Instrumentation.begin(this, "doExport");
+
             try {
-                doExportProcessing(sources);
+                doExportProcessing(probe.meter(sources));
             } catch (PluginExecutionException | InterruptedException ex) {
                 throw ex;
-            } catch (RuntimeException ignore) {
+            } catch (RuntimeException ex) {
                 // Note:
                 // Cause exception does not wrap because it may be contaminated by an exception class
                 // loaded with another class loader.
+                probe.recordUnknownFailure(ex);
                 throw new PluginUnknownException();
+            } finally {
+                flushReporter();
+                probe.endExport();
             }
         }
 
@@ -86,5 +141,209 @@ public interface ExporterPlugin extends BatchPlugin {
          * @since 2.0.0
          */
         public abstract void doExportProcessing(ExportSourceContainer sources) throws InterruptedException;
+
+        /**
+         * Export each source by the workers that run at the same time. The number of the workers is taken from the
+         * plug-in property {@value #EXPORT_CONCURRENCY}. Call this from {@link #doExportProcessing(ExportSourceContainer)}
+         * to export in parallel.
+         *
+         * <p>
+         * If exporting of a source fails, all other workers are interrupted and the failure is thrown. The progress is
+         * reported to {@link #getRunContext()}, and exporting stops when its deadline passes.
+         *
+         * @param sources exportation contents source
+         * @param exporter export processing of a source. It is called from several threads at the same time.
+         * @throws DeadlineExceededException if the deadline of the run context has passed
+         * @throws PluginExecutionException if processing cannot be continued
+         * @throws InterruptedException if interrupted
+         * @since 2.1.0
+         */
+        protected final void exportInParallel(ExportSourceContainer sources, SourceExporter exporter)
+            throws InterruptedException {
+            forEachChunk(sources, 1, chunk -> exporter.export(chunk.get(0)));
+        }
+
+        /**
+         * Export the sources by chunk. Sources are split into chunks of the size taken from the plug-in property
+         * {@value #EXPORT_CHUNK_SIZE} in the order of {@link ExportSourceContainer#stream()}, and the chunks are
+         * exported by the workers that run at the same time. The number of the workers is taken from the plug-in
+         * property {@value #EXPORT_CONCURRENCY}. Call this from {@link #doExportProcessing(ExportSourceContainer)} to
+         * export to a destination that accepts many contents at once.
+         *
+         * <p>
+         * The outcomes returned for a chunk are recorded at once by {@link ExportSourceContainer#getOutcomeSink()}. If
+         * exporting of a chunk fails, all other workers are interrupted and the failure is thrown. The progress is
+         * reported to {@link #getRunContext()}, and exporting stops when its deadline passes.
+         *
+         * @param sources exportation contents source
+         * @param exporter export processing of a chunk. It is called from several threads at the same time.
+         * @throws DeadlineExceededException if the deadline of the run context has passed
+         * @throws PluginExecutionException if processing cannot be continued
+         * @throws InterruptedException if interrupted
+         * @since 2.1.0
+         */
+        protected final void exportInChunks(ExportSourceContainer sources, ChunkExporter exporter)
+            throws InterruptedException {
+            int chunkSize = Math.max(1, getPluginProperties().getInt(EXPORT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE));
+            ExportOutcomeSink sink = sources.getOutcomeSink();
+
+            forEachChunk(sources, chunkSize, chunk -> {
+                List<ExportOutcome> outcomes = exporter.export(Collections.unmodifiableList(chunk));
+
+                if (!outcomes.isEmpty()) {
+                    sink.record(outcomes);
+                }
+            });
+        }
+
+        private void forEachChunk(ExportSourceContainer sources, int chunkSize, ChunkWork work)
+            throws InterruptedException {
+            int concurrency = Math.max(1, getPluginProperties().getInt(EXPORT_CONCURRENCY, 1));
+
+            RunContext context = getRunContext();
+
+            try (Stream<ExportSource> stream = sources.stream()) {
+                Spliterator<ExportSource> spliterator = stream.spliterator();
+
+                if (spliterator.hasCharacteristics(Spliterator.SIZED)) {
+                    context.setEstimatedTotal(spliterator.getExactSizeIfKnown());
+                }
+
+                List<Spliterator<ExportSource>> split = split(spliterator, concurrency);
+                BlockingQueue<Spliterator<ExportSource>> parts = new LinkedBlockingQueue<>(split);
+                AtomicInteger outstanding = new AtomicInteger(split.size());
+
+                VirtualWorkers.run("export-", concurrency, () -> {
+                    while (true) {
+                        // Note:
+                        // The queue is empty while the other workers hold the parts, so a worker waits for a part
+                        // until all parts are used up instead of leaving when the queue is empty.
+                        Spliterator<ExportSource> part = parts.take();
+
+                        if (part == END) {
+                            parts.put(END);
+                            return;
+                        }
+
+                        List<ExportSource> chunk = new ArrayList<>(chunkSize);
+
+                        while (chunk.size() < chunkSize && part.tryAdvance(chunk::add)) {
+                            // Take next source.
+                        }
+
+                        if (chunk.isEmpty()) {
+                            if (outstanding.decrementAndGet() == 0) {
+                                parts.put(END);
+                            }
+
+                            continue;
+                        }
+
+                        // Note:
+                        // The part is handed back before exporting the chunk so that the other workers can continue
+                        // with it when it could not be split enough. A part is held by only one worker at a time.
+                        parts.put(part);
+
+                        throwIfInterruptedOrExpired();
+                        work.run(chunk);
+                        context.addProcessed(chunk.size());
+                    }
+                });
+            }
+        }
+
+        /**
+         * Split the spliterator into the parts for the workers, the largest part first, as a parallel stream does.
+         * Splitting stops when there are as many parts as the workers or when no part can be split anymore.
+         *
+         * @param spliterator spliterator of the sources
+         * @param workers number of the workers
+         * @return parts of the spliterator in encounter order
+         */
+        private static List<Spliterator<ExportSource>> split(Spliterator<ExportSource> spliterator, int workers) {
+            List<Spliterator<ExportSource>> parts = new ArrayList<>(workers);
+            parts.add(spliterator);
+
+            Set<Spliterator<ExportSource>> unsplittable = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            while (parts.size() < workers) {
+                int largest = -1;
+
+                for (int i = 0; i < parts.size(); i++) {
+                    if (!unsplittable.contains(parts.get(i)) && (largest < 0
+                        || parts.get(i).estimateSize() > parts.get(largest).estimateSize())) {
+                        largest = i;
+                    }
+                }
+
+                if (largest < 0) {
+                    break;
+                }
+
+                Spliterator<ExportSource> prefix = parts.get(largest).trySplit();
+
+                if (prefix == null) {
+                    unsplittable.add(parts.get(largest));
+                } else {
+                    parts.add(largest, prefix);
+                }
+            }
+
+            return parts;
+        }
+
+        /**
+         * Work for a chunk.
+         */
+        @FunctionalInterface
+        private interface ChunkWork {
+
+            void run(List<ExportSource> chunk) throws InterruptedException;
+        }
+
+        /**
+         * Export processing of a source.
+         *
+         * @author riru
+         * @version 2.1.0
+         * @since 2.1.0
+         */
+        @FunctionalInterface
+        public interface SourceExporter {
+
+            /**
+             * Export a source. Record the result by {@link ExportSource#recordAsSuccess(List)} or
+             * {@link ExportSource#recordAsFailure(List)}.
+             *
+             * @param source exportation content source
+             * @throws PluginExecutionException if processing cannot be continued
+             * @throws InterruptedException if interrupted
+             * @since 2.1.0
+             */
+            void export(ExportSource source) throws InterruptedException;
+        }
+
+        /**
+         * Export processing of a chunk.
+         *
+         * @author riru
+         * @version 2.1.0
+         * @since 2.1.0
+         */
+        @FunctionalInterface
+        public interface ChunkExporter {
+
+            /**
+             * Export a chunk, and returns the outcomes of its sources. The returned outcomes are recorded at once.
+             * Sources that have no outcome in the returned value are left unrecorded.
+             *
+             * @param chunk sources of the chunk. It is unmodifiable and never empty.
+             * @return export outcomes of the sources of the chunk. It must not be {@code null}.
+             * @throws PluginExecutionException if processing cannot be continued
+             * @throws InterruptedException if interrupted
+             * @since 2.1.0
+             */
+            List<ExportOutcome> export(List<ExportSource> chunk) throws InterruptedException;
+        }
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * {@link CheckpointStore} backed by a local file. A cursor is committed by writing a temporary file and replacing the
+ * store file atomically, so the store file always has a complete cursor. Then the directory is flushed, so that the
+ * replacement survives a crash of the operating system. On a platform that cannot open a directory, such as Windows,
+ * the directory is not flushed, and a crash of the operating system may restore the previous cursor.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class FileCheckpointStore implements CheckpointStore {
+
+    private final Path file;
+    private final Path temporary;
+    private final Path directory;
+
+    /**
+     * Constructor.
+     *
+     * @param file file to store the cursor. Its directory must exist.
+     * @throws NullPointerException if {@code file} is {@code null}
+     * @since 2.1.0
+     */
+    public FileCheckpointStore(Path file) {
+        this.file = Objects.requireNonNull(file);
+        this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        this.directory = file.toAbsolutePath().getParent();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized Optional<String> load() {
+        try {
+            return Optional.of(Files.readString(file, UTF_8));
+        } catch (NoSuchFileException ignore) {
+            return Optional.empty();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized void commit(String cursor) {
+        Objects.requireNonNull(cursor);
+
+        try (FileChannel ch = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = UTF_8.encode(cursor);
+
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+
+            ch.force(true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized void clear() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        FileChannel ch;
+
+        try {
+            ch = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException ignore) {
+            // Note:
+            // Some platforms, such as Windows, cannot open a directory. The replacement is left to the operating
+            // system there.
+            return;
+        }
+
+        try (ch) {
+            ch.force(true);
+        }
+    }
+}
@@ -25,6 +25,10 @@
  */
 package jp.mydns.projectk.safi.plugin;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import jp.mydns.projectk.formula.FormulaExecutionException;
 import jp.mydns.projectk.formula.Function;
 import jp.mydns.projectk.plugin.PluginExecutionException;
@@ -33,7 +37,7 @@ import jp.mydns.projectk.plugin.PluginExecutionException;
  * Formula-function plugin interface.
  *
  * @author riru
- * @version 1.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public interface FunctionPlugin extends SafiPlugin, Function {
@@ -50,15 +54,139 @@ public interface FunctionPlugin extends SafiPlugin, Function {
     @Override
     String execute(Argument... args);
 
+    /**
+     * Execute this function over a column of argument tuples in one call. All tuples have the same number of
+     * arguments, as the arguments of one function call in a formula.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation checks the number of arguments of all tuples, then executes
+     * {@link #execute(Argument...)} for each tuple.</li>
+     * </ul>
+     *
+     * @param argsList function arguments of each execution
+     * @return results of each execution in the same order as {@code argsList}. An element may be {@code null}.
+     * @throws NullPointerException if {@code argsList} is {@code null} or contains {@code null}, or an element of a
+     * tuple is {@code null}
+     * @throws IllegalArgumentException if a tuple has a different number of arguments from the first tuple
+     * @throws PluginExecutionException if processing cannot be continued
+     * @since 2.1.0
+     */
+    default List<String> executeAll(List<Argument[]> argsList) {
+        requireSameArity(argsList);
+
+        String[] results = new String[argsList.size()];
+        int i = 0;
+        for (Argument[] args : argsList) {
+            results[i++] = execute(args);
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Validate that all tuples have the same number of arguments as the first tuple.
+     */
+    private static void requireSameArity(List<Argument[]> argsList) {
+        int arity = -1;
+        int i = 0;
+
+        for (Argument[] args : argsList) {
+            Objects.requireNonNull(args);
+
+            if (arity < 0) {
+                arity = args.length;
+            } else if (args.length != arity) {
+                throw new IllegalArgumentException(
+                    "Tuple " + i + " has " + args.length + " arguments, but " + arity + " are expected.");
+            }
+
+            i++;
+        }
+    }
+
+    /**
+     * {@code true} if this function is pure. A pure function always returns the same result for the same argument
+     * values and has no side effects, so its results can be cached.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@code false}.</li>
+     * </ul>
+     *
+     * @return {@code true} if pure
+     * @since 2.1.0
+     */
+    default boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Set the maximum number of the cached results. Applies only if this function is pure. Cached results are
+     * discarded.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation does nothing because it does not cache results.</li>
+     * </ul>
+     *
+     * @param maxSize maximum number of the cached results. If {@code 0}, the cache is disabled.
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     * @since 2.1.0
+     */
+    default void setResultCacheSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative.");
+        }
+    }
+
+    /**
+     * Get the statistics of the result cache.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@link ResultCacheStats#EMPTY}.</li>
+     * </ul>
+     *
+     * @return statistics
+     * @since 2.1.0
+     */
+    default ResultCacheStats getResultCacheStats() {
+        return ResultCacheStats.EMPTY;
+    }
+
     /**
      * Abstract implements of the {@code FunctionPlugin}.
      *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>If {@link #isPure()} is {@code true}, results are cached in a bounded LRU cache keyed by
+     * {@link #cacheKey(Argument...)}. The arguments themselves are never used as the key, because they are not value
+     * objects. If the function does not override {@code cacheKey}, results are not cached.</li>
+     * </ul>
+     *
      * @author riru
-     * @version 1.0.0
+     * @version 2.1.0
      * @since 1.0.0
      */
     abstract class AbstractFunctionPlugin implements FunctionPlugin {
 
+        /**
+         * Default maximum number of the cached results.
+         *
+         * @since 2.1.0
+         */
+        public static final int DEFAULT_RESULT_CACHE_SIZE = 10_000;
+
+        private static final ResultCache<Object> NO_CACHE = new ResultCache<>(1);
+
+        private int resultCacheSize = DEFAULT_RESULT_CACHE_SIZE;
+        private volatile ResultCache<Object> resultCache;
+
         /**
          * {@inheritDoc}
          *
@@ -67,16 +195,141 @@ public interface FunctionPlugin extends SafiPlugin, Function {
          */
         @Override
         public final String execute(Argument... args) {
+            FunctionExecutionEvent event = Instrumentation.newExecutionEvent();
+            long startedAt = Instrumentation.beginExecution(event);
+
+            try {
+                return calculateCached(getArgumentScheme().requireValid(args));
+            } catch (FormulaExecutionException | PluginExecutionException ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                // Note:
+                // Cause exception does not wrap because it may be contaminated by an exception class
+                // loaded with another class loader.
+                Instrumentation.recordUnknownFailure(getName(), "execute", ex);
+                throw new PluginUnknownException();
+            } finally {
+                Instrumentation.endExecution(this, event, startedAt, 1);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>All tuples are validated before any calculation, then {@link #calculateAll(List)} is called once.</li>
+         * </ul>
+         *
+         * @throws NullPointerException if {@code argsList} is {@code null} or contains {@code null}
+         * @throws IllegalArgumentException if a tuple has a different number of arguments from the first tuple
+         * @throws PluginExecutionException if processing cannot be continued
+         * @since 2.1.0
+         */
+        @Override
+        public final List<String> executeAll(List<Argument[]> argsList) {
+            // Note:
+            // Validate the tuples outside the exception translation, because they are a mistake of the caller.
+            requireSameArity(argsList);
+
+            FunctionExecutionEvent event = Instrumentation.newExecutionEvent();
+            long startedAt = Instrumentation.beginExecution(event);
+
             try {
-                return calculate(getArgumentScheme().requireValid(args));
+                ArgumentScheme scheme = getArgumentScheme();
+                Argument[][] validArgsList = new Argument[argsList.size()][];
+                int i = 0;
+                for (Argument[] args : argsList) {
+                    validArgsList[i++] = scheme.requireValid(args);
+                }
+
+                String[] results = calculateAll(Collections.unmodifiableList(Arrays.asList(validArgsList)));
+                if (results.length != validArgsList.length) {
+                    throw new IllegalStateException("Number of the results is " + results.length + ", but "
+                        + validArgsList.length + " are expected.");
+                }
+
+                return Collections.unmodifiableList(Arrays.asList(results));
             } catch (FormulaExecutionException | PluginExecutionException ex) {
                 throw ex;
-            } catch (Throwable ignore) {
+            } catch (Throwable ex) {
                 // Note:
                 // Cause exception does not wrap because it may be contaminated by an exception class
                 // loaded with another class loader.
+                Instrumentation.recordUnknownFailure(getName(), "executeAll", ex);
                 throw new PluginUnknownException();
+            } finally {
+                Instrumentation.endExecution(this, event, startedAt, argsList.size());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws IllegalArgumentException if {@code maxSize} is negative
+         * @since 2.1.0
+         */
+        @Override
+        public final synchronized void setResultCacheSize(int maxSize) {
+            if (maxSize < 0) {
+                throw new IllegalArgumentException("Cache size must not be negative.");
+            }
+
+            resultCacheSize = maxSize;
+            resultCache = null;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @since 2.1.0
+         */
+        @Override
+        public final ResultCacheStats getResultCacheStats() {
+            ResultCache<Object> cache = resultCache;
+            return cache == null || cache == NO_CACHE ? ResultCacheStats.EMPTY : cache.getStats();
+        }
+
+        private String calculateCached(Argument[] validArgs) {
+            ResultCache<Object> cache = resultCache();
+            Object key = cache != NO_CACHE ? cacheKey(validArgs) : null;
+
+            return key == null ? calculate(validArgs) : cache.get(key, () -> calculate(validArgs));
+        }
+
+        private ResultCache<Object> resultCache() {
+            ResultCache<Object> cache = resultCache;
+            if (cache != null) {
+                return cache;
             }
+
+            synchronized (this) {
+                if (resultCache == null) {
+                    resultCache = isPure() && resultCacheSize > 0 ? new ResultCache<>(resultCacheSize) : NO_CACHE;
+                }
+                return resultCache;
+            }
+        }
+
+        /**
+         * Get the key of the result cache for the arguments. A pure function overrides this to cache its results. The
+         * key must be built from the values of the arguments, such as a {@code List} of the resolved values, and must
+         * implement value-based {@code equals} and {@code hashCode}. It must not hold the arguments themselves, because
+         * an argument may be a new object for each execution or may be reused for different values.
+         *
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>Default implementation returns {@code null}, so results are not cached.</li>
+         * </ul>
+         *
+         * @param validArgs valid number arguments
+         * @return key of the result cache. If {@code null}, the result of this execution is not cached.
+         * @since 2.1.0
+         */
+        protected Object cacheKey(Argument... validArgs) {
+            return null;
         }
 
         /**
@@ -88,5 +341,30 @@ public interface FunctionPlugin extends SafiPlugin, Function {
          * @since 1.0.0
          */
         protected abstract String calculate(Argument... args);
+
+        /**
+         * Calculate over a column of valid argument tuples. Override this if the results of the whole column can be
+         * resolved at once, such as with one query to an external lookup.
+         *
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>Default implementation calculates each tuple by {@link #calculate(Argument...)}, using the result cache
+         * if this function is pure.</li>
+         * </ul>
+         *
+         * @param validArgsList valid number arguments of each execution
+         * @return results of each execution in the same order as {@code validArgsList}. An element may be
+         * {@code null}.
+         * @throws PluginExecutionException if processing cannot be continued
+         * @since 2.1.0
+         */
+        protected String[] calculateAll(List<Argument[]> validArgsList) {
+            String[] results = new String[validArgsList.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = calculateCached(validArgsList.get(i));
+            }
+            return results;
+        }
     }
 }
@@ -25,6 +25,7 @@
  */
 package jp.mydns.projectk.safi.plugin;
 
+import java.util.Objects;
 import java.util.stream.Stream;
 
 /**
@@ -36,7 +37,7 @@ import java.util.stream.Stream;
  * </ul>
  *
  * @author riru
- * @version 2.0.4
+ * @version 2.1.0
  * @since 1.0.0
  */
 public interface ImportResultContainer {
@@ -48,4 +49,114 @@ public interface ImportResultContainer {
      * @since 1.0.0
      */
     Stream<ImportResult> stream();
+
+    /**
+     * Get the values of the result kind stored in this.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation filters {@link #stream()}.</li>
+     * </ul>
+     *
+     * @param kindName result kind. It value is {@code REGISTER}, {@code DELETION}, or {@code FAILURE}.
+     * @return values of the result kind
+     * @throws NullPointerException if {@code kindName} is {@code null}
+     * @since 2.1.0
+     */
+    default Stream<ImportResult> stream(String kindName) {
+        Objects.requireNonNull(kindName);
+        return stream().filter(r -> kindName.equals(r.getKindName()));
+    }
+
+    /**
+     * Get the successful or unsuccessful values stored in this.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation filters {@link #stream()}.</li>
+     * </ul>
+     *
+     * @param success {@code true} to get the successful values, {@code false} to get the unsuccessful values
+     * @return successful or unsuccessful values
+     * @since 2.1.0
+     */
+    default Stream<ImportResult> stream(boolean success) {
+        return stream().filter(r -> r.isSuccess() == success);
+    }
+
+    /**
+     * Get all values stored in this without their content values. Use this if the content value is not needed, so
+     * that the implementation can skip reading and decoding it.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation maps {@link #stream()}.</li>
+     * </ul>
+     *
+     * @return all values without content values
+     * @since 2.1.0
+     */
+    default Stream<ImportResultSummary> summaries() {
+        return stream().map(ImportResultSummary::of);
+    }
+
+    /**
+     * Get number of the values stored in this.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation counts {@link #stream()}.</li>
+     * </ul>
+     *
+     * @return number of the values
+     * @since 2.1.0
+     */
+    default long count() {
+        try (Stream<ImportResult> s = stream()) {
+            return s.count();
+        }
+    }
+
+    /**
+     * Get number of the values of the result kind stored in this.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation counts {@link #stream(String)}.</li>
+     * </ul>
+     *
+     * @param kindName result kind. It value is {@code REGISTER}, {@code DELETION}, or {@code FAILURE}.
+     * @return number of the values of the result kind
+     * @throws NullPointerException if {@code kindName} is {@code null}
+     * @since 2.1.0
+     */
+    default long count(String kindName) {
+        try (Stream<ImportResult> s = stream(kindName)) {
+            return s.count();
+        }
+    }
+
+    /**
+     * Get number of the successful or unsuccessful values stored in this.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation counts {@link #stream(boolean)}.</li>
+     * </ul>
+     *
+     * @param success {@code true} to count the successful values, {@code false} to count the unsuccessful values
+     * @return number of the successful or unsuccessful values
+     * @since 2.1.0
+     */
+    default long count(boolean success) {
+        try (Stream<ImportResult> s = stream(success)) {
+            return s.count();
+        }
+    }
 }
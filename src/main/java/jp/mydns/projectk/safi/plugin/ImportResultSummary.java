@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Objects;
+
+/**
+ * The result of one imported content without its content value. It is a projection of {@link ImportResult} for the
+ * post-processing that does not need the content value, so the value is never read nor decoded.
+ *
+ * @param success {@code true} if import was successful
+ * @param kindName result kind. It value is {@code REGISTER}, {@code DELETION}, or {@code FAILURE}.
+ * @param formatName format name of content value
+ * @param message result message for this content
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see ImportResultContainer#summaries()
+ */
+public record ImportResultSummary(boolean success, String kindName, String formatName, String message) {
+
+    /**
+     * Create a summary of the result.
+     *
+     * @param result import result
+     * @return the summary
+     * @throws NullPointerException if {@code result} is {@code null}
+     * @since 2.1.0
+     */
+    public static ImportResultSummary of(ImportResult result) {
+        Objects.requireNonNull(result);
+        return new ImportResultSummary(result.isSuccess(), result.getKindName(), result.getFormatName(),
+            result.getMessage());
+    }
+}
@@ -25,7 +25,10 @@
  */
 package jp.mydns.projectk.safi.plugin;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Consumer;
 import jp.mydns.projectk.plugin.PluginExecutionException;
 import jp.mydns.projectk.safi.plugin.BatchPlugin.AbstractBatchPlugin;
@@ -35,7 +38,7 @@ import jp.mydns.projectk.safi.plugin.BatchPlugin.AbstractBatchPlugin;
  * from the outside.
  *
  * @author riru
- * @version 2.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public interface ImporterPlugin extends BatchPlugin {
@@ -50,6 +53,215 @@ public interface ImporterPlugin extends BatchPlugin {
      */
     void fetch(Consumer<Map<String, String>> entrance) throws InterruptedException;
 
+    /**
+     * Fetch content values from a data source, and carry-in them by block. Used to reduce the per content overhead of
+     * the carry-in when fetching a large number of contents.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>Each block should have {@code blockSize} contents. A block may have a different number of contents if the
+     * data source dictates it, such as a page size. The last block may have fewer contents.</li>
+     * <li>Never carry-in an empty block.</li>
+     * <li>Carried-in block is handed over to the caller, so never modify it after carry-in.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation gathers the contents fetched by {@link #fetch(Consumer)} into blocks.</li>
+     * </ul>
+     *
+     * @param entrance carry-in entrance of the fetched contents. One carry-in represents for a block of contents.
+     * @param blockSize requested number of contents per block
+     * @throws NullPointerException if {@code entrance} is {@code null}
+     * @throws IllegalArgumentException if {@code blockSize} is less than 1
+     * @throws PluginExecutionException if processing cannot be continued
+     * @throws InterruptedException if interrupted
+     * @since 2.1.0
+     */
+    default void fetchBlocks(Consumer<List<Map<String, String>>> entrance, int blockSize) throws InterruptedException {
+        BlockEntrance blocks = new BlockEntrance(entrance, blockSize);
+        fetch(blocks);
+        blocks.flush();
+    }
+
+    /**
+     * {@code true} if the fetching can resume from a cursor by {@link #fetch(Consumer, String, Consumer)}.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@code false}.</li>
+     * </ul>
+     *
+     * @return {@code true} if resumable
+     * @since 2.1.0
+     */
+    default boolean isResumable() {
+        return false;
+    }
+
+    /**
+     * Fetch content values from a data source, resuming from a cursor. The importer emits opaque cursor checkpoints
+     * along with the contents, and the plug-in caller persists them. At the next run, the importer is handed the last
+     * committed cursor, and resumes the fetching after it. Delivery is at-least-once, so contents carried-in after the
+     * last committed cursor may be carried-in again.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>A checkpoint represents that all contents carried-in before it need not be fetched again.</li>
+     * <li>Fetching resumed from a cursor carries-in all contents after the checkpoint of the cursor.</li>
+     * <li>If {@link #isResumable()} is {@code false}, ignore {@code cursor} and fetch from the beginning.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation fetches from the beginning by {@link #fetch(Consumer)} and emits no checkpoint.</li>
+     * </ul>
+     *
+     * @param entrance carry-in entrance of the fetched content. One carry-in represents for one content.
+     * @param cursor the last committed cursor. If {@code null}, fetch from the beginning.
+     * @param checkpoint receiver of the cursor checkpoint. It is called on the thread that carries-in the contents.
+     * @throws NullPointerException if {@code entrance} or {@code checkpoint} is {@code null}
+     * @throws PluginExecutionException if processing cannot be continued
+     * @throws InterruptedException if interrupted
+     * @since 2.1.0
+     * @see CheckpointStore
+     */
+    default void fetch(Consumer<Map<String, String>> entrance, String cursor, Consumer<String> checkpoint)
+        throws InterruptedException {
+        Objects.requireNonNull(checkpoint);
+
+        fetch(entrance);
+    }
+
+    /**
+     * {@code true} if the data source supports an incremental fetch by {@link #fetchDelta(DeltaEntrance, String)}.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@code false}.</li>
+     * </ul>
+     *
+     * @return {@code true} if incremental
+     * @since 2.1.0
+     */
+    default boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * Fetch the changes since the high-water mark from a data source. The plug-in caller hands the watermark returned
+     * by the last successful run, and the importer carries-in only the added or updated contents and the deletion
+     * markers since then. The returned result tells whether the fetch was partial, so that the plug-in caller does
+     * not treat the contents that were not carried-in as deleted.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>If {@code watermark} is {@code null} or cannot be used, carry-in all contents and return a snapshot
+     * result.</li>
+     * <li>If {@link #isIncremental()} is {@code false}, carry-in all contents and return a snapshot result.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation carries-in all contents by {@link #fetch(Consumer)} and returns a snapshot result
+     * without watermark.</li>
+     * </ul>
+     *
+     * @param entrance carry-in entrance of the changed contents and the deletion markers
+     * @param watermark the high-water mark of the last successful run. If {@code null}, fetch all contents.
+     * @return the result that has the new watermark. It never {@code null}.
+     * @throws NullPointerException if {@code entrance} is {@code null}
+     * @throws PluginExecutionException if processing cannot be continued
+     * @throws InterruptedException if interrupted
+     * @since 2.1.0
+     * @see CheckpointStore
+     */
+    default DeltaResult fetchDelta(DeltaEntrance entrance, String watermark) throws InterruptedException {
+        fetch(entrance);
+        return DeltaResult.ofSnapshot(null);
+    }
+
+    /**
+     * Get the column layout of the fetched contents. If an importer declares the layout, it carries-in each content as
+     * a {@link ContentRow} of the layout instead of a general {@code Map}. It reduces the memory that each content
+     * occupies, and the receiver can read the values by column index.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>If the layout is present, all contents carried-in are a {@code ContentRow} of the layout.</li>
+     * <li>Returns the same value every time.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns an empty.</li>
+     * </ul>
+     *
+     * @return the column layout. It is empty if not declared.
+     * @since 2.1.0
+     */
+    default Optional<ContentLayout> getContentLayout() {
+        return Optional.empty();
+    }
+
+    /**
+     * Get number of the partitions of the data source. Each partition can be fetched independently and at the same
+     * time by {@link #fetchPartition(int, Consumer)}.
+     *
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation returns {@code 1}.</li>
+     * </ul>
+     *
+     * @return number of the partitions. It is a positive number.
+     * @since 2.1.0
+     * @see PartitionedFetcher
+     */
+    default int getPartitionCount() {
+        return 1;
+    }
+
+    /**
+     * Fetch content values of a partition from a data source.
+     *
+     * <p>
+     * Implementation requirements.
+     * <ul>
+     * <li>It may be called from several threads at the same time for different partitions.</li>
+     * <li>Contents fetched by all partitions are equal to contents fetched by {@link #fetch(Consumer)}.</li>
+     * </ul>
+     * <p>
+     * Implementation notes.
+     * <ul>
+     * <li>Default implementation fetches all contents by {@link #fetch(Consumer)} in partition {@code 0}, and fetches
+     * nothing in the other partitions. So an importer that overrides only {@link #getPartitionCount()} still fetches
+     * all contents once, but not in parallel.</li>
+     * </ul>
+     *
+     * @param partition index of the partition. It is less than {@link #getPartitionCount()}.
+     * @param entrance carry-in entrance of the fetched content. One carry-in represents for one content. It may be
+     * called from several threads at the same time.
+     * @throws NullPointerException if {@code entrance} is {@code null}
+     * @throws IndexOutOfBoundsException if {@code partition} is out of range
+     * @throws PluginExecutionException if processing cannot be continued
+     * @throws InterruptedException if interrupted
+     * @since 2.1.0
+     */
+    default void fetchPartition(int partition, Consumer<Map<String, String>> entrance) throws InterruptedException {
+        Objects.requireNonNull(entrance);
+
+        if (Objects.checkIndex(partition, getPartitionCount()) == 0) {
+            fetch(entrance);
+        }
+    }
+
     /**
      * Perform post-import processing. Use the import results to respond to the data source.
      *
@@ -64,7 +276,7 @@ public interface ImporterPlugin extends BatchPlugin {
      * Abstract implements of the {@code ImporterPlugin}.
      *
      * @author riru
-     * @version 2.0.0
+     * @version 2.1.0
      * @since 1.0.0
      */
     abstract class AbstractImporterPlugin extends AbstractBatchPlugin implements ImporterPlugin {
@@ -77,38 +289,144 @@ public interface ImporterPlugin extends BatchPlugin {
          */
         @Override
         public final void fetch(Consumer<Map<String, String>> entrance) throws InterruptedException {
+            fetching("fetch", probe -> {
+                fetchContents(probe.meter(entrance));
+                return null;
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws NullPointerException if {@code entrance} is {@code null}
+         * @throws PluginExecutionException if processing cannot be continued
+         * @since 2.1.0
+         */
+        @Override
+        public final DeltaResult fetchDelta(DeltaEntrance entrance, String watermark) throws InterruptedException {
+            Objects.requireNonNull(entrance);
+
+            return fetching("fetchDelta", probe -> Objects.requireNonNull(
+                fetchContentsDelta(probe.meter(entrance), isIncremental() ? watermark : null)));
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws NullPointerException if {@code entrance} or {@code checkpoint} is {@code null}
+         * @throws PluginExecutionException if processing cannot be continued
+         * @since 2.1.0
+         */
+        @Override
+        public final void fetch(Consumer<Map<String, String>> entrance, String cursor, Consumer<String> checkpoint)
+            throws InterruptedException {
+            Objects.requireNonNull(entrance);
+            Objects.requireNonNull(checkpoint);
+
+            fetching("fetch", probe -> {
+                fetchContents(probe.meter(entrance), isResumable() ? cursor : null, checkpoint);
+                return null;
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws NullPointerException if {@code entrance} is {@code null}
+         * @throws IllegalArgumentException if {@code blockSize} is less than 1
+         * @throws PluginExecutionException if processing cannot be continued
+         * @since 2.1.0
+         */
+        @Override
+        public final void fetchBlocks(Consumer<List<Map<String, String>>> entrance, int blockSize)
+            throws InterruptedException {
+            Objects.requireNonNull(entrance);
+            BlockEntrance.requireValidBlockSize(blockSize);
+
+            fetching("fetchBlocks", probe -> {
+                fetchContentBlocks(probe.meter(entrance, List::size), blockSize);
+                return null;
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws NullPointerException if {@code entrance} is {@code null}
+         * @throws IndexOutOfBoundsException if {@code partition} is out of range
+         * @throws PluginExecutionException if processing cannot be continued
+         * @since 2.1.0
+         */
+        @Override
+        public final void fetchPartition(int partition, Consumer<Map<String, String>> entrance)
+            throws InterruptedException {
+            Objects.requireNonNull(entrance);
+            Objects.checkIndex(partition, getPartitionCount());
+
+            fetching("fetchPartition", probe -> {
+                fetchPartitionContents(partition, probe.meter(entrance));
+                return null;
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws PluginExecutionException if processing cannot be continuedExecute post-processing
+         * @since 2.0.0
+         */
+        @Override
+        public final void doPost(ImportResultContainer records) throws InterruptedException {
+            Instrumentation.Probe probe = Instrumentation.begin(this, "doPost");
+
             try {
-                fetchContents(entrance);
+                doPostProcessing(records);
             } catch (PluginExecutionException | InterruptedException ex) {
                 throw ex;
-            } catch (RuntimeException ignore) {
+            } catch (RuntimeException ex) {
                 // Note:
                 // Cause exception does not wrap because it may be contaminated by an exception class
                 // loaded with another class loader.
+                probe.recordUnknownFailure(ex);
                 throw new PluginUnknownException();
+            } finally {
+                flushReporter();
+                probe.endPost();
             }
         }
 
         /**
-         * {@inheritDoc}
-         *
-         * @throws PluginExecutionException if processing cannot be continuedExecute post-processing
-         * @since 2.0.0
+         * Fetch by the plug-in, measured by the probe of the operation. An unexpected exception is replaced by
+         * {@code PluginUnknownException}.
          */
-        @Override
-        public final void doPost(ImportResultContainer records) throws InterruptedException {
+        private <T> T fetching(String operation, Fetching<T> fetching) throws InterruptedException {
+            Instrumentation.Probe probe = Instrumentation.begin(this, operation);
+
             try {
-                doPostProcessing(records);
+                return fetching.fetch(probe);
             } catch (PluginExecutionException | InterruptedException ex) {
                 throw ex;
-            } catch (RuntimeException ignore) {
+            } catch (RuntimeException ex) {
                 // Note:
                 // Cause exception does not wrap because it may be contaminated by an exception class
                 // loaded with another class loader.
+                probe.recordUnknownFailure(ex);
                 throw new PluginUnknownException();
+            } finally {
+                flushReporter();
+                probe.endFetch();
             }
         }
 
+        /**
+         * Fetching by the plug-in.
+         */
+        @FunctionalInterface
+        private interface Fetching<T> {
+
+            T fetch(Instrumentation.Probe probe) throws InterruptedException;
+        }
+
         /**
          * Fetch content values from a data source.
          *
@@ -119,6 +437,124 @@ public interface ImporterPlugin extends BatchPlugin {
          */
         public abstract void fetchContents(Consumer<Map<String, String>> entrance) throws InterruptedException;
 
+        /**
+         * Fetch the changes since the high-water mark from a data source. Override this together with
+         * {@link #isIncremental()} if the data source supports a query of the changes.
+         *
+         * <p>
+         * Implementation requirements.
+         * <ul>
+         * <li>Follows the requirements of {@link ImporterPlugin#fetchDelta(DeltaEntrance, String)}.</li>
+         * </ul>
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>Default implementation carries-in all contents by {@link #fetchContents(Consumer)} and returns a
+         * snapshot result without watermark.</li>
+         * </ul>
+         *
+         * @param entrance carry-in entrance of the changed contents and the deletion markers
+         * @param watermark the high-water mark of the last successful run. If {@code null}, fetch all contents.
+         * @return the result that has the new watermark. It must not be {@code null}.
+         * @throws PluginExecutionException if processing cannot be continued
+         * @throws InterruptedException if interrupted
+         * @since 2.1.0
+         */
+        public DeltaResult fetchContentsDelta(DeltaEntrance entrance, String watermark) throws InterruptedException {
+            fetchContents(entrance);
+            return DeltaResult.ofSnapshot(null);
+        }
+
+        /**
+         * Fetch content values from a data source, resuming from a cursor. Override this together with
+         * {@link #isResumable()} if the data source can resume the fetching.
+         *
+         * <p>
+         * Implementation requirements.
+         * <ul>
+         * <li>Follows the requirements of {@link ImporterPlugin#fetch(Consumer, String, Consumer)}.</li>
+         * </ul>
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>Default implementation fetches from the beginning by {@link #fetchContents(Consumer)} and emits no
+         * checkpoint.</li>
+         * </ul>
+         *
+         * @param entrance carry-in entrance of the fetched content. One carry-in represents for one content.
+         * @param cursor the last committed cursor. If {@code null}, fetch from the beginning.
+         * @param checkpoint receiver of the cursor checkpoint
+         * @throws PluginExecutionException if processing cannot be continued
+         * @throws InterruptedException if interrupted
+         * @since 2.1.0
+         */
+        public void fetchContents(Consumer<Map<String, String>> entrance, String cursor, Consumer<String> checkpoint)
+            throws InterruptedException {
+            fetchContents(entrance);
+        }
+
+        /**
+         * Fetch content values from a data source, and carry-in them by block. Override this if the data source can
+         * provide contents in bulk.
+         *
+         * <p>
+         * Implementation requirements.
+         * <ul>
+         * <li>Follows the requirements of {@link ImporterPlugin#fetchBlocks(Consumer, int)}.</li>
+         * </ul>
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>Default implementation gathers the contents fetched by {@link #fetchContents(Consumer)} into
+         * blocks.</li>
+         * </ul>
+         *
+         * @param entrance carry-in entrance of the fetched contents. One carry-in represents for a block of contents.
+         * @param blockSize requested number of contents per block. It is a positive number.
+         * @throws PluginExecutionException if processing cannot be continued
+         * @throws InterruptedException if interrupted
+         * @since 2.1.0
+         */
+        public void fetchContentBlocks(Consumer<List<Map<String, String>>> entrance, int blockSize)
+            throws InterruptedException {
+            BlockEntrance blocks = new BlockEntrance(entrance, blockSize);
+            fetchContents(blocks);
+            blocks.flush();
+        }
+
+        /**
+         * Fetch content values of a partition from a data source. Override this together with
+         * {@link #getPartitionCount()} if the data source can be read in parallel.
+         *
+         * <p>
+         * Implementation requirements.
+         * <ul>
+         * <li>Follows the requirements of {@link ImporterPlugin#fetchPartition(int, Consumer)}.</li>
+         * <li>Call {@link #throwIfInterrupted()} periodically so that the fetching of all partitions can be
+         * cancelled.</li>
+         * </ul>
+         * <p>
+         * Implementation notes.
+         * <ul>
+         * <li>Default implementation fetches all contents by {@link #fetchContents(Consumer)} in partition {@code 0},
+         * and fetches nothing in the other partitions. So an importer that overrides only {@link #getPartitionCount()}
+         * still fetches all contents once, but not in parallel.</li>
+         * </ul>
+         *
+         * @param partition index of the partition. It is less than {@link #getPartitionCount()}.
+         * @param entrance carry-in entrance of the fetched content. One carry-in represents for one content. It may be
+         * called from several threads at the same time.
+         * @throws PluginExecutionException if processing cannot be continued
+         * @throws InterruptedException if interrupted
+         * @since 2.1.0
+         */
+        public void fetchPartitionContents(int partition, Consumer<Map<String, String>> entrance)
+            throws InterruptedException {
+            if (Objects.checkIndex(partition, getPartitionCount()) == 0) {
+                fetchContents(entrance);
+            }
+        }
+
         /**
          * Perform post-import processing. Use the import results to respond to the data source.
          *
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import jdk.jfr.EventType;
+
+/**
+ * Instrumentation of the final wrappers of the abstract plug-in implementations. Reports the measurements to the
+ * installed {@link PluginMetrics} and to the JDK Flight Recorder.
+ *
+ * <p>
+ * Implementation notes.
+ * <ul>
+ * <li>If no metrics registry is installed and no JFR event is enabled, the wrappers neither read the clock, allocate
+ * the event nor wrap the carry-in entrance.</li>
+ * <li>Only the class name of a replaced exception is kept, because the exception may be contaminated by an exception
+ * class loaded with another class loader.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class Instrumentation {
+
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final EventType EXECUTION_EVENT = EventType.getEventType(FunctionExecutionEvent.class);
+    private static final EventType OPERATION_EVENT = EventType.getEventType(PluginOperationEvent.class);
+
+    private static volatile PluginMetrics metrics = PluginMetrics.NOOP;
+
+    private Instrumentation() {
+    }
+
+    static void install(PluginMetrics metrics) {
+        Instrumentation.metrics = metrics;
+    }
+
+    static PluginMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Begin a measurement of a batch plug-in operation.
+     *
+     * @param plugin the plug-in
+     * @param operation name of the wrapper method
+     * @return the probe
+     * @since 2.1.0
+     */
+    static Probe begin(Object plugin, String operation) {
+        return new Probe(plugin.getClass().getName(), operation);
+    }
+
+    /**
+     * Record that an unexpected exception was replaced by {@link PluginUnknownException}.
+     *
+     * @param plugin class name of the plug-in, or name of the function
+     * @param operation name of the wrapper method
+     * @param replaced the replaced exception
+     * @since 2.1.0
+     */
+    static void recordUnknownFailure(String plugin, String operation, Throwable replaced) {
+        String exceptionClass = replaced.getClass().getName();
+
+        metrics.recordUnknownFailure(plugin, operation, exceptionClass);
+
+        UnknownFailureEvent event = new UnknownFailureEvent();
+        if (event.shouldCommit()) {
+            event.plugin = plugin;
+            event.operation = operation;
+            event.exceptionClass = exceptionClass;
+            event.commit();
+        }
+    }
+
+    /**
+     * Create the event of function executions only if it is enabled, so that an execution allocates nothing for the
+     * event by default.
+     *
+     * @return the event. {@code null} if not enabled.
+     * @since 2.1.0
+     */
+    static FunctionExecutionEvent newExecutionEvent() {
+        return EXECUTION_EVENT.isEnabled() ? new FunctionExecutionEvent() : null;
+    }
+
+    /**
+     * Begin a measurement of function executions.
+     *
+     * @param event the event created by {@link #newExecutionEvent()}. It may be {@code null}.
+     * @return start time. If not measured by the metrics registry, a value that means not timed.
+     * @since 2.1.0
+     */
+    static long beginExecution(FunctionExecutionEvent event) {
+        if (event != null) {
+            event.begin();
+        }
+
+        return metrics != PluginMetrics.NOOP ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * End a measurement of function executions.
+     *
+     * @param function the function
+     * @param event the event begun by {@link #beginExecution(FunctionExecutionEvent)}. It may be {@code null}.
+     * @param startedAt start time returned by {@link #beginExecution(FunctionExecutionEvent)}
+     * @param calls number of the executions
+     * @since 2.1.0
+     */
+    static void endExecution(FunctionPlugin function, FunctionExecutionEvent event, long startedAt, long calls) {
+        if (event != null) {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.function = function.getName();
+                event.calls = calls;
+                event.commit();
+            }
+        }
+
+        if (startedAt != NOT_TIMED) {
+            metrics.recordExecution(function.getName(), calls, System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Measurement of a batch plug-in operation.
+     *
+     * @since 2.1.0
+     */
+    static final class Probe {
+
+        private final String plugin;
+        private final String operation;
+        private final PluginMetrics metrics;
+        private final PluginOperationEvent event;
+        private final boolean active;
+        private final long startedAt;
+        private final LongAdder contents = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private Probe(String plugin, String operation) {
+            this.plugin = plugin;
+            this.operation = operation;
+            this.metrics = Instrumentation.metrics;
+            this.event = OPERATION_EVENT.isEnabled() ? new PluginOperationEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            this.active = metrics != PluginMetrics.NOOP || event != null;
+            this.startedAt = metrics != PluginMetrics.NOOP ? System.nanoTime() : NOT_TIMED;
+        }
+
+        /**
+         * Wrap a carry-in entrance to count the contents and to measure the carry-in latency.
+         *
+         * @param <T> type of the carry-in
+         * @param entrance carry-in entrance
+         * @param sizer number of the contents of a carry-in
+         * @return measured carry-in entrance. If not active, {@code entrance} itself.
+         * @since 2.1.0
+         */
+        <T> Consumer<T> meter(Consumer<T> entrance, ToIntFunction<T> sizer) {
+            if (!active) {
+                return entrance;
+            }
+
+            return c -> {
+                long carryInStartedAt = carryInStartTime();
+                entrance.accept(c);
+                carriedIn(carryInStartedAt, sizer.applyAsInt(c));
+            };
+        }
+
+        /**
+         * Wrap a per content carry-in entrance.
+         *
+         * @param entrance carry-in entrance
+         * @return measured carry-in entrance. If not active, {@code entrance} itself.
+         * @since 2.1.0
+         */
+        Consumer<Map<String, String>> meter(Consumer<Map<String, String>> entrance) {
+            return meter(entrance, c -> 1);
+        }
+
+        /**
+         * Wrap a carry-in entrance of an incremental fetch.
+         *
+         * @param entrance carry-in entrance
+         * @return measured carry-in entrance. If not active, {@code entrance} itself.
+         * @since 2.1.0
+         */
+        DeltaEntrance meter(DeltaEntrance entrance) {
+            if (!active) {
+                return entrance;
+            }
+
+            return new DeltaEntrance() {
+                @Override
+                public void accept(Map<String, String> content) {
+                    long carryInStartedAt = carryInStartTime();
+                    entrance.accept(content);
+                    carriedIn(carryInStartedAt, 1);
+                }
+
+                @Override
+                public void acceptDeletion(Map<String, String> content) {
+                    long carryInStartedAt = carryInStartTime();
+                    entrance.acceptDeletion(content);
+                    carriedIn(carryInStartedAt, 1);
+                }
+            };
+        }
+
+        /**
+         * Wrap an exportation contents source to count the outcomes.
+         *
+         * @param sources exportation contents source
+         * @return measured exportation contents source. If not active, {@code sources} itself.
+         * @since 2.1.0
+         */
+        ExportSourceContainer meter(ExportSourceContainer sources) {
+            return active ? new MeteredExportSourceContainer(sources, successes, failures) : sources;
+        }
+
+        /**
+         * End the measurement of a fetch.
+         *
+         * @since 2.1.0
+         */
+        void endFetch() {
+            commitEvent();
+
+            if (startedAt != NOT_TIMED) {
+                metrics.recordFetch(plugin, contents.sum(), System.nanoTime() - startedAt);
+            }
+        }
+
+        /**
+         * End the measurement of a post-processing.
+         *
+         * @since 2.1.0
+         */
+        void endPost() {
+            commitEvent();
+
+            if (startedAt != NOT_TIMED) {
+                metrics.recordPost(plugin, System.nanoTime() - startedAt);
+            }
+        }
+
+        /**
+         * End the measurement of an export.
+         *
+         * @since 2.1.0
+         */
+        void endExport() {
+            commitEvent();
+
+            if (startedAt != NOT_TIMED) {
+                metrics.recordExport(plugin, successes.sum(), failures.sum(), System.nanoTime() - startedAt);
+            }
+        }
+
+        /**
+         * Record that an unexpected exception was replaced by {@link PluginUnknownException}.
+         *
+         * @param replaced the replaced exception
+         * @since 2.1.0
+         */
+        void recordUnknownFailure(Throwable replaced) {
+            Instrumentation.recordUnknownFailure(plugin, operation, replaced);
+        }
+
+        private long carryInStartTime() {
+            return startedAt != NOT_TIMED ? System.nanoTime() : NOT_TIMED;
+        }
+
+        private void carriedIn(long carryInStartedAt, int size) {
+            contents.add(size);
+
+            if (carryInStartedAt != NOT_TIMED) {
+                metrics.recordCarryIn(plugin, System.nanoTime() - carryInStartedAt);
+            }
+        }
+
+        private void commitEvent() {
+            if (event == null) {
+                return;
+            }
+
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.plugin = plugin;
+                event.operation = operation;
+                event.contents = contents.sum() + successes.sum() + failures.sum();
+                event.failures = failures.sum();
+                event.commit();
+            }
+        }
+    }
+}
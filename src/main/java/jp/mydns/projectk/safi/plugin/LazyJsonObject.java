@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParserFactory;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * {@code JsonObject} that keeps the serialized JSON text and decodes it on demand. The first read of a member by name
+ * decodes only that member, and skips the others without building them. The whole object is decoded, and cached, at the
+ * second read of a member or when an operation that needs all members is used. So reading any number of members parses
+ * the serialized JSON text at most twice.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is immutable and thread-safe.</li>
+ * <li>The serialized JSON text must be a JSON object encoded in UTF-8. It is not validated until it is decoded.</li>
+ * <li>If a member name appears more than once, the last member is used, the same as {@link JsonReader}.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class LazyJsonObject extends AbstractMap<String, JsonValue> implements JsonObject {
+
+    private static final JsonParserFactory PARSERS = Json.createParserFactory(Map.of());
+    private static final JsonReaderFactory READERS = Json.createReaderFactory(Map.of());
+
+    private final ByteBuffer json;
+    private volatile JsonObject decoded;
+    private volatile boolean memberRead;
+
+    private LazyJsonObject(ByteBuffer json) {
+        this.json = json;
+    }
+
+    /**
+     * Create a lazy JSON object. The buffer is not copied, so it must not be modified after this.
+     *
+     * @param json serialized JSON object encoded in UTF-8. It is read from its position to its limit.
+     * @return lazy JSON object
+     * @throws NullPointerException if {@code json} is {@code null}
+     * @since 2.1.0
+     */
+    public static LazyJsonObject of(ByteBuffer json) {
+        return new LazyJsonObject(json.slice().asReadOnlyBuffer());
+    }
+
+    /**
+     * Create a lazy JSON object. The array is not copied, so it must not be modified after this.
+     *
+     * @param json serialized JSON object encoded in UTF-8
+     * @return lazy JSON object
+     * @throws NullPointerException if {@code json} is {@code null}
+     * @since 2.1.0
+     */
+    public static LazyJsonObject of(byte[] json) {
+        return of(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Get the serialized JSON text.
+     *
+     * @return read-only view of the serialized JSON text encoded in UTF-8
+     * @since 2.1.0
+     */
+    public ByteBuffer getSerialized() {
+        return json.duplicate();
+    }
+
+    /**
+     * Get a member value. At the first read, only the member is decoded. After that, the whole object is decoded.
+     *
+     * @param key member name
+     * @return member value. Returns {@code null} if not exists.
+     * @throws jakarta.json.JsonException if the JSON text is invalid
+     * @since 2.1.0
+     */
+    @Override
+    public JsonValue get(Object key) {
+        JsonObject d = decoded;
+
+        if (d != null) {
+            return d.get(key);
+        }
+
+        if (!(key instanceof String name)) {
+            return null;
+        }
+
+        if (memberRead) {
+            return decode().get(name);
+        }
+
+        memberRead = true;
+
+        return find(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * It decodes the whole object.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public Set<Map.Entry<String, JsonValue>> entrySet() {
+        return decode().entrySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public JsonArray getJsonArray(String name) {
+        return (JsonArray) get(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public JsonObject getJsonObject(String name) {
+        return (JsonObject) get(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public JsonNumber getJsonNumber(String name) {
+        return (JsonNumber) get(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public JsonString getJsonString(String name) {
+        return (JsonString) get(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public String getString(String name) {
+        return getJsonString(name).getString();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public String getString(String name, String defaultValue) {
+        return get(name) instanceof JsonString s ? s.getString() : defaultValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int getInt(String name) {
+        return getJsonNumber(name).intValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int getInt(String name, int defaultValue) {
+        return get(name) instanceof JsonNumber n ? n.intValue() : defaultValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean getBoolean(String name) {
+        JsonValue v = Objects.requireNonNull(get(name));
+
+        return switch (v.getValueType()) {
+            case TRUE ->
+                true;
+            case FALSE ->
+                false;
+            default ->
+                throw new ClassCastException("Value is not a boolean. " + name);
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean getBoolean(String name, boolean defaultValue) {
+        JsonValue v = get(name);
+
+        if (v == null) {
+            return defaultValue;
+        }
+
+        return switch (v.getValueType()) {
+            case TRUE ->
+                true;
+            case FALSE ->
+                false;
+            default ->
+                defaultValue;
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean isNull(String name) {
+        return Objects.requireNonNull(get(name)).getValueType() == ValueType.NULL;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public ValueType getValueType() {
+        return ValueType.OBJECT;
+    }
+
+    /**
+     * Returns the serialized JSON text.
+     *
+     * @return the serialized JSON text
+     * @since 2.1.0
+     */
+    @Override
+    public String toString() {
+        return UTF_8.decode(json.duplicate()).toString();
+    }
+
+    /**
+     * Decode the whole object. It is cached.
+     *
+     * @return decoded object
+     * @throws jakarta.json.JsonException if the JSON text is invalid
+     * @since 2.1.0
+     */
+    JsonObject decode() {
+        JsonObject d = decoded;
+
+        if (d == null) {
+            try (JsonReader r = READERS.createReader(new ByteBufferInputStream(json.duplicate()), UTF_8)) {
+                d = r.readObject();
+            }
+
+            decoded = d;
+        }
+
+        return d;
+    }
+
+    private JsonValue find(String name) {
+        try (JsonParser p = PARSERS.createParser(new ByteBufferInputStream(json.duplicate()), UTF_8)) {
+            p.next();
+
+            // Note:
+            // Scan to the end of the object, because the last member is used if the name appears more than once.
+            JsonValue found = null;
+
+            while (p.hasNext()) {
+                if (p.next() != JsonParser.Event.KEY_NAME) {
+                    return found;
+                }
+
+                boolean matched = name.equals(p.getString());
+
+                switch (p.next()) {
+                    case START_OBJECT -> {
+                        if (matched) {
+                            found = p.getObject();
+                        } else {
+                            p.skipObject();
+                        }
+                    }
+                    case START_ARRAY -> {
+                        if (matched) {
+                            found = p.getArray();
+                        } else {
+                            p.skipArray();
+                        }
+                    }
+                    default -> {
+                        if (matched) {
+                            found = p.getValue();
+                        }
+                    }
+                }
+            }
+
+            return found;
+        }
+    }
+}
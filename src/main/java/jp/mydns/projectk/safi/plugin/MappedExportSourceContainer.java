@@ -0,0 +1,936 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.JsonObject;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reference implementation of the {@link ExportSourceContainer} backed by memory-mapped files. The collection entity
+ * is kept in files, and only a few fields are kept in the heap, regardless of the number of contents.
+ *
+ * <p>
+ * The container consists of the following files in its directory.
+ * <ul>
+ * <li>{@code sources.log} - Append-only value log. Each record has the content id, the difference between values,
+ * the current value and the previous value.</li>
+ * <li>{@code sources.ord} - Header and the log position of each record in append order.</li>
+ * <li>{@code sources-<slots>.idx} - Open addressing hash index from the content id to the record, so that
+ * {@link #get(String)} and {@link #containsKey(String)} are O(1).</li>
+ * <li>{@code sources-<slots>.blm} - Optional Bloom filter of the content ids. See
+ * {@link #create(Path, int, SyncPolicy, double)}.</li>
+ * <li>{@code sources.sts} - Recorded export status of each record.</li>
+ * <li>{@code outcomes.log} - Append-only journal of the recorded export outcomes.</li>
+ * </ul>
+ * Values are provided as {@link LazyJsonObject} over the mapped file, so that they are decoded only when read. The
+ * {@link ValueDiff} is computed once when a content is stored, and an unchanged content is detected without decoding
+ * the values.
+ *
+ * <p>
+ * Export outcomes recorded by {@link ExportSource#recordAsSuccess(List)}, {@link ExportSource#recordAsFailure(List)}
+ * and {@link #getOutcomeSink()} are written to the journal as soon as they are recorded. If an export is interrupted,
+ * the container can be opened again by {@link #open(Path, SyncPolicy)} to resume it. The resumed container streams
+ * only the sources that have no recorded outcome.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe for reading.</li>
+ * <li>All contents must be stored by a single thread before reading.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class MappedExportSourceContainer implements ExportSourceContainer, Closeable {
+
+    private static final long MAGIC = 0x5341464945585031L;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    private static final int NULL_LENGTH = -1;
+    private static final int MIN_SLOTS = 16;
+    private static final byte UNRECORDED = 0;
+
+    private final Path directory;
+    private final MappedFile log;
+    private final MappedFile ordinals;
+    private final MappedFile statuses;
+    private final OutcomeJournal journal;
+    private final boolean resuming;
+    private final double falsePositiveRate;
+    private final Object recording = new Object();
+    private volatile MappedFile index;
+    private volatile MembershipFilter filter;
+    private volatile long slots;
+    private volatile int size;
+    private long logEnd;
+
+    private MappedExportSourceContainer(Path directory, long slots, SyncPolicy syncPolicy, double falsePositiveRate) {
+        this.directory = directory;
+        this.log = new MappedFile(directory.resolve("sources.log"), true);
+        this.ordinals = new MappedFile(directory.resolve("sources.ord"), true);
+        this.statuses = new MappedFile(directory.resolve("sources.sts"), true);
+        this.journal = new OutcomeJournal(directory.resolve("outcomes.log"), true, syncPolicy, e -> {
+        });
+        this.resuming = false;
+        this.falsePositiveRate = falsePositiveRate;
+        this.index = newIndex(slots);
+        this.filter = falsePositiveRate > 0 ? newFilter(slots) : null;
+        this.slots = slots;
+
+        ordinals.ensure(HEADER_SIZE);
+        ordinals.putLong(0, MAGIC);
+        writeHeader();
+    }
+
+    private MappedExportSourceContainer(Path directory, SyncPolicy syncPolicy) {
+        this.directory = directory;
+        this.log = new MappedFile(directory.resolve("sources.log"), false);
+        this.ordinals = new MappedFile(directory.resolve("sources.ord"), false);
+        this.statuses = new MappedFile(directory.resolve("sources.sts"), false);
+        this.resuming = true;
+
+        ordinals.ensure(HEADER_SIZE);
+
+        if (ordinals.getLong(0) != MAGIC) {
+            throw new UncheckedIOException(new IOException("Not a container directory. " + directory));
+        }
+
+        this.size = (int) ordinals.getLong(8);
+        this.logEnd = ordinals.getLong(16);
+        this.slots = ordinals.getLong(24);
+        this.falsePositiveRate = Double.longBitsToDouble(ordinals.getLong(32));
+        this.index = new MappedFile(indexPath(slots), false);
+        this.filter = falsePositiveRate > 0 ? MembershipFilter.open(filterPath(slots)) : null;
+
+        log.ensure(logEnd);
+        ordinals.ensure(ordinalPos(size));
+        index.ensure(slots * SLOT_SIZE);
+        statuses.ensure(size);
+
+        // Note:
+        // The journal is the source of truth of the recorded outcomes, so statuses are rebuilt from it.
+        for (int i = 0; i < size; i++) {
+            statuses.put(i, UNRECORDED);
+        }
+
+        try {
+            this.journal = new OutcomeJournal(directory.resolve("outcomes.log"), false, syncPolicy, e -> {
+                if (e.ordinal() < 0 || e.ordinal() >= size) {
+                    throw new UncheckedIOException(new IOException("Journal has an outcome of an unknown content. "
+                        + e.ordinal()));
+                }
+
+                statuses.put(e.ordinal(), statusOf(e.status()));
+            });
+        } catch (UncheckedIOException ex) {
+            closeOnFailure(ex, log, ordinals, statuses, index, filter);
+            throw ex;
+        }
+    }
+
+    /**
+     * Create an empty container in the directory. Recorded outcomes are not flushed explicitly, that is
+     * {@link SyncPolicy#NONE}, so they survive a crash of the process but may be lost by a crash of the operating
+     * system. To resume an export even after a crash of the operating system, create the container by
+     * {@link #create(Path, int, SyncPolicy)} with {@link SyncPolicy#BATCH}, which flushes by each record.
+     *
+     * @param directory directory to place the container files. It must exist and must not contain the container files.
+     * @param expectedSize expected number of contents. The index is sized for it, and grows if exceeded.
+     * @return an empty container
+     * @throws NullPointerException if {@code directory} is {@code null}
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public static MappedExportSourceContainer create(Path directory, int expectedSize) {
+        return create(directory, expectedSize, SyncPolicy.NONE);
+    }
+
+    /**
+     * Create an empty container in the directory.
+     *
+     * @param directory directory to place the container files. It must exist and must not contain the container files.
+     * @param expectedSize expected number of contents. The index is sized for it, and grows if exceeded.
+     * @param syncPolicy policy of flushing the recorded outcomes to the storage device
+     * @return an empty container
+     * @throws NullPointerException if {@code directory} or {@code syncPolicy} is {@code null}
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public static MappedExportSourceContainer create(Path directory, int expectedSize, SyncPolicy syncPolicy) {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(syncPolicy);
+
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative.");
+        }
+
+        return new MappedExportSourceContainer(directory, slotsFor(expectedSize), syncPolicy, 0);
+    }
+
+    /**
+     * Create an empty container in the directory, with a Bloom filter of the content ids. The filter answers most
+     * lookups of absent ids, such as {@link #containsKey(String)} and {@link #get(String)}, without probing the index.
+     * Lookups that the filter answers as present are confirmed by the index, so the lookups stay exact.
+     *
+     * <p>
+     * The filter is sized with the index for its maximum load, and is rebuilt when the index grows. It costs about
+     * {@code 1.1 * -ln(falsePositiveRate) / ln(2)^2} bits per content at the maximum load, for example 11 bits at 1%.
+     * The actual size is reported by {@link #getFilterFootprint()}.
+     *
+     * @param directory directory to place the container files. It must exist and must not contain the container files.
+     * @param expectedSize expected number of contents. The index is sized for it, and grows if exceeded.
+     * @param syncPolicy policy of flushing the recorded outcomes to the storage device
+     * @param falsePositiveRate target false positive rate of the filter. It is greater than 0 and less than 1.
+     * @return an empty container
+     * @throws NullPointerException if {@code directory} or {@code syncPolicy} is {@code null}
+     * @throws IllegalArgumentException if {@code expectedSize} is negative, or if {@code falsePositiveRate} is out of
+     * range
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public static MappedExportSourceContainer create(Path directory, int expectedSize, SyncPolicy syncPolicy,
+        double falsePositiveRate) {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(syncPolicy);
+
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative.");
+        }
+
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be greater than 0 and less than 1.");
+        }
+
+        return new MappedExportSourceContainer(directory, slotsFor(expectedSize), syncPolicy, falsePositiveRate);
+    }
+
+    /**
+     * Open the container in the directory to resume an interrupted export. The opened container is in resume mode, so
+     * it streams only the sources that have no recorded outcome. No content can be stored to it.
+     *
+     * @param directory directory of the container files
+     * @param syncPolicy policy of flushing the recorded outcomes to the storage device
+     * @return the container in resume mode
+     * @throws NullPointerException if {@code directory} or {@code syncPolicy} is {@code null}
+     * @throws UncheckedIOException if occurs I/O error, if the directory does not have a container, or if the journal of
+     * the outcomes is broken
+     * @since 2.1.0
+     */
+    public static MappedExportSourceContainer open(Path directory, SyncPolicy syncPolicy) {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(syncPolicy);
+
+        return new MappedExportSourceContainer(directory, syncPolicy);
+    }
+
+    /**
+     * Store a content.
+     *
+     * @param id content id
+     * @param value content value. In case of deletion, it is {@code null}.
+     * @param previous previous content value. If new, it is {@code null}.
+     * @throws NullPointerException if {@code id} is {@code null}
+     * @throws IllegalArgumentException if {@code id} is already stored, or if the content is too large
+     * @throws IllegalStateException if in resume mode
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public synchronized void put(String id, JsonObject value, JsonObject previous) {
+        if (resuming) {
+            throw new IllegalStateException("Cannot store to the resumed container.");
+        }
+
+        byte[] idBytes = id.getBytes(UTF_8);
+        long hash = hash(idBytes);
+
+        if (find(idBytes, hash) >= 0) {
+            throw new IllegalArgumentException("Content id is already stored. " + id);
+        }
+
+        byte[] diffBytes = encode(ValueDiff.of(decoded(previous), decoded(value)));
+        byte[] valueBytes = encode(value);
+        byte[] previousBytes = encode(previous);
+        long length = 16L + idBytes.length + diffBytes.length + lengthOf(valueBytes) + lengthOf(previousBytes);
+
+        if (length > MappedFile.SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Content is too large. " + id);
+        }
+
+        // Note:
+        // A record never straddles the segment boundary, so that it can be read as one slice.
+        long pos = MappedFile.remainingInSegment(logEnd) < length
+            ? logEnd + MappedFile.remainingInSegment(logEnd) : logEnd;
+
+        log.ensure(pos + length);
+        long p = pos;
+        p = write(p, idBytes);
+        p = write(p, diffBytes);
+        p = write(p, valueBytes);
+        write(p, previousBytes);
+
+        int ordinal = size;
+        ordinals.ensure(ordinalPos(ordinal) + Long.BYTES);
+        ordinals.putLong(ordinalPos(ordinal), pos);
+        statuses.ensure(ordinal + 1L);
+
+        if ((ordinal + 1L) * 4 > slots * 3) {
+            rehash(slots * 2);
+        }
+
+        insert(index, slots, hash, ordinal);
+
+        if (filter != null) {
+            filter.add(hash);
+        }
+
+        logEnd = pos + length;
+        size = ordinal + 1;
+        writeHeader();
+    }
+
+    /**
+     * Get all values stored in this. Values are streamed in storing order, and the stream splits evenly by the
+     * ordinal. In resume mode, only the values that have no recorded outcome are streamed.
+     *
+     * @return all values stored in this
+     * @since 2.1.0
+     */
+    @Override
+    public Stream<ExportSource> stream() {
+        IntStream ordinalStream = IntStream.range(0, size);
+
+        if (resuming) {
+            ordinalStream = ordinalStream.filter(o -> statuses.get(o) == UNRECORDED);
+        }
+
+        return ordinalStream.mapToObj(this::sourceAt);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    /**
+     * Get the sink that records the export outcomes of many contents at once. Outcomes of one call are written to the
+     * journal by one write.
+     *
+     * @return the outcome sink
+     * @since 2.1.0
+     */
+    @Override
+    public ExportOutcomeSink getOutcomeSink() {
+        return outcomes -> {
+            List<OutcomeJournal.Entry> entries = new ArrayList<>(outcomes.size());
+
+            for (ExportOutcome o : outcomes) {
+                int ordinal = find(o.id());
+
+                if (ordinal < 0) {
+                    throw new IllegalArgumentException("Content does not exist. " + o.id());
+                }
+
+                entries.add(new OutcomeJournal.Entry(ordinal, o.status(), o.messages()));
+            }
+
+            record(entries);
+        };
+    }
+
+    /**
+     * Read all recorded export outcomes in recording order. It includes the outcomes recorded before resuming.
+     *
+     * @param action action for each outcome
+     * @throws NullPointerException if {@code action} is {@code null}
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public void forEachOutcome(Consumer<ExportOutcome> action) {
+        Objects.requireNonNull(action);
+
+        journal.forEach(e -> action.accept(new ExportOutcome(sourceAt(e.ordinal()).getId(), e.status(),
+            e.messages())));
+    }
+
+    /**
+     * Flush all container files to the storage device. Call this after storing all contents, so that the container
+     * survives a crash of the operating system.
+     *
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public void force() {
+        log.force();
+        ordinals.force();
+        index.force();
+        statuses.force();
+
+        if (filter != null) {
+            filter.force();
+        }
+    }
+
+    /**
+     * Get the size of the Bloom filter of the content ids.
+     *
+     * @return size of the filter in bytes. Returns 0 if this container has no filter.
+     * @since 2.1.0
+     */
+    public long getFilterFootprint() {
+        MembershipFilter f = filter;
+        return f != null ? f.getFootprint() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && find(key) >= 0;
+    }
+
+    /**
+     * Returns all content ids. The returned set is a view of this container, so the ids are not kept in memory.
+     *
+     * @return all content ids. It is unmodifiable.
+     * @since 2.1.0
+     */
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return keys().iterator();
+            }
+
+            @Override
+            public int size() {
+                return MappedExportSourceContainer.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String k && containsKey(k);
+            }
+        };
+    }
+
+    /**
+     * Get all content ids. The ids are streamed in storing order, that is the order of the value log, and the stream
+     * splits evenly by the ordinal. The value log is not sorted by id, so the stream is not sorted. It includes the ids
+     * that have a recorded outcome even in resume mode.
+     *
+     * @return all content ids
+     * @since 2.1.0
+     */
+    @Override
+    public Stream<String> keys() {
+        return IntStream.range(0, size).mapToObj(o -> readId(ordinals.getLong(ordinalPos(o))));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public ExportSource get(String key) {
+        int ordinal = key != null ? find(key) : -1;
+        return ordinal >= 0 ? sourceAt(ordinal) : null;
+    }
+
+    /**
+     * Get values associated with each of {@code keys} at once. The index is probed in slot order, so that it is read
+     * sequentially, and the result iterates in storing order, so that reading the values reads the value log
+     * sequentially. {@code null} ids are ignored.
+     *
+     * @param keys content ids
+     * @return values associated with the ids, keyed by content id
+     * @throws NullPointerException if {@code keys} is {@code null}
+     * @since 2.1.0
+     */
+    @Override
+    public Map<String, ExportSource> getAll(Collection<String> keys) {
+        Objects.requireNonNull(keys);
+
+        final long mask = slots - 1;
+        List<Lookup> lookups = new ArrayList<>(keys.size());
+
+        for (String key : keys) {
+            if (key != null) {
+                byte[] idBytes = key.getBytes(UTF_8);
+                lookups.add(new Lookup(key, idBytes, hash(idBytes)));
+            }
+        }
+
+        lookups.sort(Comparator.comparingLong(l -> l.hash() & mask));
+
+        List<Hit> hits = new ArrayList<>(lookups.size());
+
+        for (Lookup l : lookups) {
+            int ordinal = find(l.idBytes(), l.hash());
+
+            if (ordinal >= 0) {
+                hits.add(new Hit(l.key(), ordinal));
+            }
+        }
+
+        hits.sort(Comparator.comparingInt(Hit::ordinal));
+
+        Map<String, ExportSource> values = new LinkedHashMap<>();
+        hits.forEach(h -> values.putIfAbsent(h.key(), sourceAt(h.ordinal())));
+        return values;
+    }
+
+    /**
+     * Close the container files. The files are not deleted. This container must not be used after closing.
+     *
+     * @throws IOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public void close() throws IOException {
+        MembershipFilter f = filter;
+
+        try (log; ordinals; statuses; journal; f) {
+            index.close();
+        }
+    }
+
+    private void record(List<OutcomeJournal.Entry> entries) {
+        synchronized (recording) {
+            Set<Integer> recorded = new HashSet<>();
+
+            for (OutcomeJournal.Entry e : entries) {
+                if (statuses.get(e.ordinal()) != UNRECORDED || !recorded.add(e.ordinal())) {
+                    throw new IllegalStateException("Content is already recorded. " + sourceAt(e.ordinal()).getId());
+                }
+            }
+
+            journal.append(entries);
+
+            for (OutcomeJournal.Entry e : entries) {
+                statuses.put(e.ordinal(), statusOf(e.status()));
+            }
+        }
+    }
+
+    private static byte statusOf(ExportOutcome.Status status) {
+        return (byte) (status.ordinal() + 1);
+    }
+
+    private ExportSource sourceAt(int ordinal) {
+        return new MappedSource(ordinal, ordinals.getLong(ordinalPos(ordinal)));
+    }
+
+    private String readId(long pos) {
+        int length = log.getInt(pos);
+        return UTF_8.decode(log.slice(pos + 4, length)).toString();
+    }
+
+    private int find(String key) {
+        byte[] idBytes = key.getBytes(UTF_8);
+        return find(idBytes, hash(idBytes));
+    }
+
+    private int find(byte[] idBytes, long hash) {
+        final MembershipFilter f = filter;
+
+        if (f != null && !f.mightContain(hash)) {
+            return -1;
+        }
+
+        final MappedFile idx = index;
+        final long mask = slots - 1;
+
+        for (long s = hash & mask;; s = (s + 1) & mask) {
+            long ordinalPlusOne = idx.getLong(s * SLOT_SIZE + Long.BYTES);
+
+            if (ordinalPlusOne == 0) {
+                return -1;
+            }
+
+            int ordinal = (int) (ordinalPlusOne - 1);
+
+            if (idx.getLong(s * SLOT_SIZE) == hash && idEquals(ordinal, idBytes)) {
+                return ordinal;
+            }
+        }
+    }
+
+    private boolean idEquals(int ordinal, byte[] idBytes) {
+        long pos = ordinals.getLong(ordinalPos(ordinal));
+        int length = log.getInt(pos);
+        return length == idBytes.length && log.slice(pos + 4, length).equals(ByteBuffer.wrap(idBytes));
+    }
+
+    private static void insert(MappedFile idx, long slots, long hash, int ordinal) {
+        final long mask = slots - 1;
+        long s = hash & mask;
+
+        while (idx.getLong(s * SLOT_SIZE + Long.BYTES) != 0) {
+            s = (s + 1) & mask;
+        }
+
+        idx.putLong(s * SLOT_SIZE, hash);
+        idx.putLong(s * SLOT_SIZE + Long.BYTES, ordinal + 1L);
+    }
+
+    private void rehash(long newSlots) {
+        MappedFile oldIndex = index;
+        MappedFile newIndex = newIndex(newSlots);
+        MembershipFilter oldFilter = filter;
+        MembershipFilter newFilter = oldFilter != null ? newFilter(newSlots) : null;
+
+        for (long s = 0; s < slots; s++) {
+            long ordinalPlusOne = oldIndex.getLong(s * SLOT_SIZE + Long.BYTES);
+
+            if (ordinalPlusOne != 0) {
+                long hash = oldIndex.getLong(s * SLOT_SIZE);
+                insert(newIndex, newSlots, hash, (int) (ordinalPlusOne - 1));
+
+                if (newFilter != null) {
+                    newFilter.add(hash);
+                }
+            }
+        }
+
+        index = newIndex;
+        filter = newFilter;
+        slots = newSlots;
+
+        delete(oldIndex, oldIndex.getPath());
+
+        if (oldFilter != null) {
+            delete(oldFilter, oldFilter.getPath());
+        }
+    }
+
+    private static void closeOnFailure(Exception failure, Closeable... files) {
+        for (Closeable file : files) {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException suppressed) {
+                    failure.addSuppressed(suppressed);
+                }
+            }
+        }
+    }
+
+    private static void delete(Closeable file, Path path) {
+        try (file) {
+            Files.deleteIfExists(path);
+        } catch (IOException ignore) {
+            // Note:
+            // Some platforms cannot delete a mapped file. The old file is only garbage, so ignore it.
+        }
+    }
+
+    private MappedFile newIndex(long slots) {
+        MappedFile idx = new MappedFile(indexPath(slots), true);
+        idx.ensure(slots * SLOT_SIZE);
+        return idx;
+    }
+
+    private Path indexPath(long slots) {
+        return directory.resolve("sources-" + slots + ".idx");
+    }
+
+    /**
+     * Create the filter sized for the maximum number of contents that the index of {@code slots} holds.
+     */
+    private MembershipFilter newFilter(long slots) {
+        return MembershipFilter.create(filterPath(slots), slots * 3 / 4, falsePositiveRate);
+    }
+
+    private Path filterPath(long slots) {
+        return directory.resolve("sources-" + slots + ".blm");
+    }
+
+    private void writeHeader() {
+        ordinals.putLong(8, size);
+        ordinals.putLong(16, logEnd);
+        ordinals.putLong(24, slots);
+        ordinals.putLong(32, Double.doubleToLongBits(falsePositiveRate));
+    }
+
+    private long write(long pos, byte[] bytes) {
+        if (bytes == null) {
+            log.putInt(pos, NULL_LENGTH);
+            return pos + 4;
+        }
+
+        log.putInt(pos, bytes.length);
+        log.put(pos + 4, bytes);
+        return pos + 4 + bytes.length;
+    }
+
+    private static long ordinalPos(int ordinal) {
+        return HEADER_SIZE + (long) ordinal * Long.BYTES;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    /**
+     * Get the value to compute the difference. A {@code LazyJsonObject} is decoded at once, because the difference
+     * reads all members.
+     */
+    private static JsonObject decoded(JsonObject value) {
+        return value instanceof LazyJsonObject lazy ? lazy.decode() : value;
+    }
+
+    private static byte[] encode(JsonObject value) {
+        if (value instanceof LazyJsonObject lazy) {
+            ByteBuffer serialized = lazy.getSerialized();
+            byte[] bytes = new byte[serialized.remaining()];
+            serialized.get(bytes);
+            return bytes;
+        }
+
+        return value != null ? value.toString().getBytes(UTF_8) : null;
+    }
+
+    /**
+     * Encode the difference. An empty difference is encoded to zero bytes.
+     */
+    private static byte[] encode(ValueDiff diff) {
+        if (diff.isEmpty()) {
+            return new byte[0];
+        }
+
+        List<byte[]> paths = new ArrayList<>();
+        int length = 12;
+
+        for (List<String> group : List.of(diff.getAdded(), diff.getRemoved(), diff.getChanged())) {
+            for (String path : group) {
+                byte[] bytes = path.getBytes(UTF_8);
+                paths.add(bytes);
+                length += 4 + bytes.length;
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        buf.putInt(diff.getAdded().size()).putInt(diff.getRemoved().size()).putInt(diff.getChanged().size());
+        paths.forEach(b -> buf.putInt(b.length).put(b));
+        return buf.array();
+    }
+
+    private static ValueDiff decodeDiff(ByteBuffer buf) {
+        if (!buf.hasRemaining()) {
+            return ValueDiff.EMPTY;
+        }
+
+        int[] counts = {buf.getInt(), buf.getInt(), buf.getInt()};
+        List<List<String>> groups = new ArrayList<>(3);
+
+        for (int count : counts) {
+            List<String> group = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                int length = buf.getInt();
+                group.add(UTF_8.decode(buf.slice(buf.position(), length)).toString());
+                buf.position(buf.position() + length);
+            }
+
+            groups.add(group);
+        }
+
+        return ValueDiff.ofPaths(groups.get(0), groups.get(1), groups.get(2));
+    }
+
+    private static long slotsFor(int expectedSize) {
+        long required = Math.max(MIN_SLOTS, expectedSize * 4L / 3 + 1);
+        return Long.highestOneBit(required - 1) << 1;
+    }
+
+    /**
+     * Calculate the 64-bit hash of the content id. It is FNV-1a followed by the finalizer of MurmurHash3.
+     */
+    private static long hash(byte[] bytes) {
+        long h = 0xCBF29CE484222325L;
+
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Content id to look up in the index.
+     */
+    private record Lookup(String key, byte[] idBytes, long hash) {
+    }
+
+    /**
+     * Content id found in the index.
+     */
+    private record Hit(String key, int ordinal) {
+    }
+
+    /**
+     * Export source that reads its record from the value log on demand.
+     */
+    private final class MappedSource implements ExportSource {
+
+        private final int ordinal;
+        private final long pos;
+
+        MappedSource(int ordinal, long pos) {
+            this.ordinal = ordinal;
+            this.pos = pos;
+        }
+
+        @Override
+        public String getId() {
+            return readId(pos);
+        }
+
+        @Override
+        public void recordAsSuccess(List<String> msgs) {
+            record(List.of(new OutcomeJournal.Entry(ordinal, ExportOutcome.Status.SUCCESS, List.copyOf(msgs))));
+        }
+
+        @Override
+        public void recordAsFailure(List<String> msgs) {
+            record(List.of(new OutcomeJournal.Entry(ordinal, ExportOutcome.Status.FAILURE, List.copyOf(msgs))));
+        }
+
+        @Override
+        public ValueDiff getDiff() {
+            long diffPos = diffPos();
+            return decodeDiff(log.slice(diffPos + 4, log.getInt(diffPos)));
+        }
+
+        @Override
+        public boolean hasChanges() {
+            long diffPos = diffPos();
+
+            if (log.getInt(diffPos) != 0) {
+                return true;
+            }
+
+            // Note:
+            // A creation or a deletion of an empty object has an empty difference, but is still a change.
+            long valuePos = diffPos + 4;
+            int valueLength = log.getInt(valuePos);
+
+            return valueLength == NULL_LENGTH || log.getInt(valuePos + 4 + Math.max(valueLength, 0)) == NULL_LENGTH;
+        }
+
+        @Override
+        public boolean isDeletion() {
+            return log.getInt(valuePos()) == NULL_LENGTH;
+        }
+
+        @Override
+        public LazyJsonObject getValue() {
+            return read(valuePos());
+        }
+
+        @Override
+        public LazyJsonObject getPrevious() {
+            long valuePos = valuePos();
+            int valueLength = log.getInt(valuePos);
+            return read(valuePos + 4 + Math.max(valueLength, 0));
+        }
+
+        private long diffPos() {
+            return pos + 4 + log.getInt(pos);
+        }
+
+        private long valuePos() {
+            long diffPos = diffPos();
+            return diffPos + 4 + log.getInt(diffPos);
+        }
+
+        private LazyJsonObject read(long at) {
+            int length = log.getInt(at);
+
+            return length != NULL_LENGTH ? LazyJsonObject.of(log.slice(at + 4, length)) : null;
+        }
+    }
+}
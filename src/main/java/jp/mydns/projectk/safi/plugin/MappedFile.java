@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * File that is accessed through memory-mapped segments. Segments are mapped on demand, and the file grows in units of
+ * segment. All accesses are absolute, so concurrent reading is safe.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>Reading is thread-safe. Writing must be done by a single thread.</li>
+ * <li>A value must not straddle the segment boundary.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class MappedFile implements Closeable {
+
+    /**
+     * Number of bits of the segment size.
+     *
+     * @since 2.1.0
+     */
+    static final int SEGMENT_BITS = 26;
+
+    /**
+     * Segment size in bytes.
+     *
+     * @since 2.1.0
+     */
+    static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /**
+     * Constructor. Open the file for reading and writing.
+     *
+     * @param path file path
+     * @param create {@code true} if create a new file, {@code false} if open an existing file
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    MappedFile(Path path, boolean create) {
+        this.path = path;
+
+        try {
+            this.channel = create
+                ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Get the file path.
+     *
+     * @return file path
+     * @since 2.1.0
+     */
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Ensure that the region up to {@code end} is mapped.
+     *
+     * @param end exclusive end position
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    void ensure(long end) {
+        int required = (int) ((end + SEGMENT_MASK) >>> SEGMENT_BITS);
+        MappedByteBuffer[] current = segments;
+
+        if (required <= current.length) {
+            return;
+        }
+
+        synchronized (this) {
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, Math.max(required, segments.length));
+
+            try {
+                for (int i = segments.length; i < grown.length; i++) {
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << SEGMENT_BITS, SEGMENT_SIZE);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            segments = grown;
+        }
+    }
+
+    /**
+     * Get the number of bytes from {@code pos} to the end of its segment.
+     *
+     * @param pos position
+     * @return number of remaining bytes in the segment
+     * @since 2.1.0
+     */
+    static int remainingInSegment(long pos) {
+        return SEGMENT_SIZE - (int) (pos & SEGMENT_MASK);
+    }
+
+    /**
+     * Read an int value.
+     *
+     * @param pos position
+     * @return int value
+     * @since 2.1.0
+     */
+    int getInt(long pos) {
+        return segment(pos).getInt((int) (pos & SEGMENT_MASK));
+    }
+
+    /**
+     * Write an int value.
+     *
+     * @param pos position
+     * @param value int value
+     * @since 2.1.0
+     */
+    void putInt(long pos, int value) {
+        segment(pos).putInt((int) (pos & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Read a long value.
+     *
+     * @param pos position
+     * @return long value
+     * @since 2.1.0
+     */
+    long getLong(long pos) {
+        return segment(pos).getLong((int) (pos & SEGMENT_MASK));
+    }
+
+    /**
+     * Write a long value.
+     *
+     * @param pos position
+     * @param value long value
+     * @since 2.1.0
+     */
+    void putLong(long pos, long value) {
+        segment(pos).putLong((int) (pos & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Read a byte value.
+     *
+     * @param pos position
+     * @return byte value
+     * @since 2.1.0
+     */
+    byte get(long pos) {
+        return segment(pos).get((int) (pos & SEGMENT_MASK));
+    }
+
+    /**
+     * Write a byte value.
+     *
+     * @param pos position
+     * @param value byte value
+     * @since 2.1.0
+     */
+    void put(long pos, byte value) {
+        segment(pos).put((int) (pos & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Write bytes.
+     *
+     * @param pos position
+     * @param bytes bytes
+     * @since 2.1.0
+     */
+    void put(long pos, byte[] bytes) {
+        segment(pos).put((int) (pos & SEGMENT_MASK), bytes);
+    }
+
+    /**
+     * Get a read-only view of the region. The content is not copied.
+     *
+     * @param pos position
+     * @param length length of the region
+     * @return read-only view of the region
+     * @since 2.1.0
+     */
+    ByteBuffer slice(long pos, int length) {
+        return segment(pos).slice((int) (pos & SEGMENT_MASK), length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Flush the written content to the storage device.
+     *
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    void force() {
+        for (MappedByteBuffer s : segments) {
+            s.force();
+        }
+    }
+
+    /**
+     * Close the file. Mapped segments stay valid until they are garbage collected.
+     *
+     * @throws IOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long pos) {
+        return segments[(int) (pos >>> SEGMENT_BITS)];
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Blocked Bloom filter of the content id hashes, kept in a memory-mapped file. It answers either that a content id is
+ * certainly absent or that it may be present. All bits of one hash are in one block of 64 bytes, so that a lookup
+ * touches only one cache line of the file.
+ *
+ * <p>
+ * The file has a header of the number of blocks and the number of bits per hash, followed by the blocks.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>Reading is thread-safe. Writing must be done by a single thread.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class MembershipFilter implements Closeable {
+
+    private static final int HEADER_SIZE = 64;
+    private static final int BLOCK_SIZE = 64;
+    private static final int BLOCK_BITS = BLOCK_SIZE * Byte.SIZE;
+    private static final int MAX_HASHES = 16;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final double LN2 = Math.log(2);
+    private static final double BLOCKING_OVERHEAD = 1.1;
+
+    private final MappedFile file;
+    private final long blocks;
+    private final int hashes;
+
+    private MembershipFilter(MappedFile file, long blocks, int hashes) {
+        this.file = file;
+        this.blocks = blocks;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Create an empty filter.
+     *
+     * @param path file path. The file must not exist.
+     * @param capacity number of hashes that the filter is sized for
+     * @param falsePositiveRate false positive rate at {@code capacity}. It is greater than 0 and less than 1.
+     * @return an empty filter
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    static MembershipFilter create(Path path, long capacity, double falsePositiveRate) {
+        double bitsPerHash = -Math.log(falsePositiveRate) / (LN2 * LN2);
+
+        // Note:
+        // Hashes are not spread evenly over the blocks, so a blocked filter needs more bits than a standard filter for
+        // the same false positive rate.
+        long blocks = Math.max(1, (long) Math.ceil(Math.max(1, capacity) * bitsPerHash * BLOCKING_OVERHEAD
+            / BLOCK_BITS));
+        int hashes = Math.clamp(Math.round(bitsPerHash * LN2), 1, MAX_HASHES);
+
+        MappedFile file = new MappedFile(path, true);
+        file.ensure(HEADER_SIZE + blocks * BLOCK_SIZE);
+        file.putLong(0, blocks);
+        file.putInt(8, hashes);
+
+        return new MembershipFilter(file, blocks, hashes);
+    }
+
+    /**
+     * Open an existing filter.
+     *
+     * @param path file path
+     * @return the filter
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    static MembershipFilter open(Path path) {
+        MappedFile file = new MappedFile(path, false);
+        file.ensure(HEADER_SIZE);
+
+        long blocks = file.getLong(0);
+        int hashes = file.getInt(8);
+
+        if (blocks < 1 || hashes < 1 || hashes > MAX_HASHES) {
+            throw new UncheckedIOException(new IOException("Broken membership filter. " + path));
+        }
+
+        file.ensure(HEADER_SIZE + blocks * BLOCK_SIZE);
+
+        return new MembershipFilter(file, blocks, hashes);
+    }
+
+    /**
+     * Get the file path.
+     *
+     * @return file path
+     * @since 2.1.0
+     */
+    Path getPath() {
+        return file.getPath();
+    }
+
+    /**
+     * Get the size of the filter in bytes.
+     *
+     * @return size of the filter in bytes
+     * @since 2.1.0
+     */
+    long getFootprint() {
+        return HEADER_SIZE + blocks * BLOCK_SIZE;
+    }
+
+    /**
+     * Add a hash.
+     *
+     * @param hash 64-bit hash of the content id
+     * @since 2.1.0
+     */
+    void add(long hash) {
+        long block = blockPos(hash);
+        long h = hash * MULTIPLIER;
+
+        for (int i = 0; i < hashes; i++, h *= MULTIPLIER) {
+            long pos = wordPos(block, h);
+            file.putLong(pos, file.getLong(pos) | bit(h));
+        }
+    }
+
+    /**
+     * Returns {@code false} if the hash has never been added.
+     *
+     * @param hash 64-bit hash of the content id
+     * @return {@code false} if the hash has certainly never been added, {@code true} if it may have been added
+     * @since 2.1.0
+     */
+    boolean mightContain(long hash) {
+        long block = blockPos(hash);
+        long h = hash * MULTIPLIER;
+
+        for (int i = 0; i < hashes; i++, h *= MULTIPLIER) {
+            if ((file.getLong(wordPos(block, h)) & bit(h)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Flush the filter to the storage device.
+     *
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    void force() {
+        file.force();
+    }
+
+    /**
+     * Close the file.
+     *
+     * @throws IOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private long blockPos(long hash) {
+        return HEADER_SIZE + Math.unsignedMultiplyHigh(hash, blocks) * BLOCK_SIZE;
+    }
+
+    /**
+     * Select one of the eight words of the block by the top 3 bits.
+     */
+    private static long wordPos(long block, long h) {
+        return block + (h >>> 61) * Long.BYTES;
+    }
+
+    /**
+     * Select one of the 64 bits of the word by the next 6 bits.
+     */
+    private static long bit(long h) {
+        return 1L << ((h >>> 55) & 63);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.JsonObject;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Exportation contents source that counts the recorded outcomes. All accesses are delegated to the original
+ * container.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see Instrumentation
+ */
+final class MeteredExportSourceContainer implements ExportSourceContainer {
+
+    private final ExportSourceContainer delegate;
+    private final LongAdder successes;
+    private final LongAdder failures;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the original container
+     * @param successes counter of the outcomes recorded as success
+     * @param failures counter of the outcomes recorded as failure
+     * @since 2.1.0
+     */
+    MeteredExportSourceContainer(ExportSourceContainer delegate, LongAdder successes, LongAdder failures) {
+        this.delegate = delegate;
+        this.successes = successes;
+        this.failures = failures;
+    }
+
+    @Override
+    public Stream<ExportSource> stream() {
+        return delegate.stream().map(MeteredSource::new);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public ExportSource get(String key) {
+        ExportSource source = delegate.get(key);
+        return source == null ? null : new MeteredSource(source);
+    }
+
+    @Override
+    public Stream<String> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public Map<String, ExportSource> getAll(Collection<String> keys) {
+        Map<String, ExportSource> values = new LinkedHashMap<>();
+        delegate.getAll(keys).forEach((k, v) -> values.put(k, new MeteredSource(v)));
+        return values;
+    }
+
+    @Override
+    public boolean isResuming() {
+        return delegate.isResuming();
+    }
+
+    @Override
+    public ExportOutcomeSink getOutcomeSink() {
+        ExportOutcomeSink sink = delegate.getOutcomeSink();
+
+        return outcomes -> {
+            sink.record(outcomes);
+
+            for (ExportOutcome o : outcomes) {
+                switch (o.status()) {
+                    case SUCCESS ->
+                        successes.increment();
+                    case FAILURE ->
+                        failures.increment();
+                }
+            }
+        };
+    }
+
+    /**
+     * Exportation content source that counts the recorded outcome.
+     *
+     * @since 2.1.0
+     */
+    private final class MeteredSource implements ExportSource {
+
+        private final ExportSource source;
+
+        MeteredSource(ExportSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public String getId() {
+            return source.getId();
+        }
+
+        @Override
+        public boolean isDeletion() {
+            return source.isDeletion();
+        }
+
+        @Override
+        public JsonObject getValue() {
+            return source.getValue();
+        }
+
+        @Override
+        public JsonObject getPrevious() {
+            return source.getPrevious();
+        }
+
+        @Override
+        public ValueDiff getDiff() {
+            return source.getDiff();
+        }
+
+        @Override
+        public boolean hasChanges() {
+            return source.hasChanges();
+        }
+
+        @Override
+        public void recordAsSuccess(List<String> msgs) {
+            source.recordAsSuccess(msgs);
+            successes.increment();
+        }
+
+        @Override
+        public void recordAsFailure(List<String> msgs) {
+            source.recordAsFailure(msgs);
+            failures.increment();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import jp.mydns.projectk.safi.plugin.ExportOutcome.Status;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Append-only journal of the export outcomes. Each call of {@link #append(List)} is written by one sequential write,
+ * so an outcome is persisted as soon as it is recorded. Each record has its length and checksum, and a torn last record
+ * is discarded when the journal is opened. A broken record followed by other bytes is not discarded, because it would
+ * lose the outcomes recorded after it, and opening the journal fails instead. If a write fails, the journal is truncated to the last complete record, so
+ * that the records appended after the failure are still read.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class OutcomeJournal implements Closeable {
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MIN_PAYLOAD_SIZE = Integer.BYTES + 1 + Integer.BYTES;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final SyncPolicy syncPolicy;
+    private final CRC32C crc = new CRC32C();
+    private long length;
+    private boolean broken;
+
+    /**
+     * Journal entry.
+     *
+     * @param ordinal ordinal of the content
+     * @param status export status
+     * @param messages processing result message for the content
+     * @since 2.1.0
+     */
+    record Entry(int ordinal, Status status, List<String> messages) {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param path journal file
+     * @param create {@code true} if create a new file, {@code false} if open an existing file
+     * @param syncPolicy policy of flushing the journal to the storage device
+     * @param replay receiver of the valid entries of the existing journal
+     * @throws UncheckedIOException if occurs I/O error, or if a record other than the last is broken
+     * @since 2.1.0
+     */
+    OutcomeJournal(Path path, boolean create, SyncPolicy syncPolicy, Consumer<Entry> replay) {
+        this(path, open(path, create), syncPolicy, replay);
+    }
+
+    /**
+     * Constructor with an opened channel.
+     *
+     * @param path journal file
+     * @param channel channel of the journal file opened for reading and writing
+     * @param syncPolicy policy of flushing the journal to the storage device
+     * @param replay receiver of the valid entries of the existing journal
+     * @throws UncheckedIOException if occurs I/O error, or if a record other than the last is broken
+     * @since 2.1.0
+     */
+    OutcomeJournal(Path path, FileChannel channel, SyncPolicy syncPolicy, Consumer<Entry> replay) {
+        this.path = path;
+        this.channel = channel;
+        this.syncPolicy = syncPolicy;
+
+        try {
+            this.length = read(channel.size(), replay);
+            channel.truncate(length);
+            channel.position(length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static FileChannel open(Path path, boolean create) {
+        try {
+            return create
+                ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Append entries by one write. If it fails, none of the entries is appended.
+     *
+     * @param entries journal entries
+     * @throws UncheckedIOException if occurs I/O error, or if the journal could not be truncated after a failure
+     * @since 2.1.0
+     */
+    synchronized void append(List<Entry> entries) {
+        if (broken) {
+            throw new UncheckedIOException(new IOException("Journal could not be recovered from a failed write. "
+                + path));
+        }
+
+        Buffer buf = new Buffer();
+        entries.forEach(buf::encode);
+        ByteBuffer bytes = buf.toByteBuffer();
+
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+
+            if (syncPolicy == SyncPolicy.BATCH) {
+                channel.force(false);
+            }
+
+            length += bytes.limit();
+        } catch (IOException ex) {
+            // Note:
+            // Torn bytes in the middle would hide all later records from reading, so they are discarded.
+            try {
+                channel.truncate(length);
+                channel.position(length);
+            } catch (IOException suppressed) {
+                broken = true;
+                ex.addSuppressed(suppressed);
+            }
+
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Read all entries.
+     *
+     * @param receiver receiver of the entries
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    void forEach(Consumer<Entry> receiver) {
+        final long end;
+
+        synchronized (this) {
+            end = length;
+        }
+
+        try {
+            read(end, receiver);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Flush the journal to the storage device if the policy requires it, and close it.
+     *
+     * @throws IOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try (channel) {
+            if (syncPolicy != SyncPolicy.NONE && channel.isOpen()) {
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Read valid entries up to {@code end}. A record that runs past {@code end}, or whose checksum does not match and
+     * that ends at {@code end}, is a torn record, and reading stops at it.
+     *
+     * @return length of the valid entries from the beginning
+     * @throws IOException if occurs I/O error, or if a record followed by other bytes is broken
+     */
+    private long read(long end, Consumer<Entry> receiver) throws IOException {
+        long pos = 0;
+        CRC32C check = new CRC32C();
+
+        try (FileChannel reading = FileChannel.open(path, StandardOpenOption.READ);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(reading),
+                READ_BUFFER_SIZE))) {
+            while (end - pos >= RECORD_HEADER_SIZE) {
+                int recordLength = in.readInt();
+                int checksum = in.readInt();
+
+                if (recordLength < MIN_PAYLOAD_SIZE || recordLength > end - pos - RECORD_HEADER_SIZE) {
+                    break;
+                }
+
+                byte[] payload = in.readNBytes(recordLength);
+                check.reset();
+                check.update(payload);
+
+                if ((int) check.getValue() != checksum) {
+                    if (pos + RECORD_HEADER_SIZE + recordLength < end) {
+                        throw new IOException("Journal record is broken at " + pos + ". " + path);
+                    }
+
+                    break;
+                }
+
+                receiver.accept(decode(ByteBuffer.wrap(payload), pos));
+                pos += RECORD_HEADER_SIZE + recordLength;
+            }
+        }
+
+        return pos;
+    }
+
+    private Entry decode(ByteBuffer buf, long pos) throws IOException {
+        try {
+            int ordinal = buf.getInt();
+            Status status = Status.values()[buf.get()];
+            int count = buf.getInt();
+            List<String> messages = new ArrayList<>(Math.min(count, buf.remaining() / Integer.BYTES));
+
+            for (int i = 0; i < count; i++) {
+                int n = buf.getInt();
+                messages.add(new String(buf.array(), buf.position(), n, UTF_8));
+                buf.position(buf.position() + n);
+            }
+
+            return new Entry(ordinal, status, List.copyOf(messages));
+        } catch (RuntimeException ex) {
+            // Note:
+            // The checksum matched, so the record was written broken. It is not a torn record.
+            throw new IOException("Journal record is broken at " + pos + ". " + path, ex);
+        }
+    }
+
+    /**
+     * Buffer of the encoded records.
+     */
+    private final class Buffer extends ByteArrayOutputStream {
+
+        void encode(Entry entry) {
+            int start = count;
+
+            writeInt(0);
+            writeInt(0);
+            writeInt(entry.ordinal());
+            write(entry.status().ordinal());
+            writeInt(entry.messages().size());
+
+            for (String m : entry.messages()) {
+                byte[] bytes = m.getBytes(UTF_8);
+                writeInt(bytes.length);
+                writeBytes(bytes);
+            }
+
+            int recordLength = count - start - RECORD_HEADER_SIZE;
+            crc.reset();
+            crc.update(buf, start + RECORD_HEADER_SIZE, recordLength);
+            putInt(start, recordLength);
+            putInt(start + 4, (int) crc.getValue());
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        private void writeInt(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+
+        private void putInt(int at, int v) {
+            buf[at] = (byte) (v >>> 24);
+            buf[at + 1] = (byte) (v >>> 16);
+            buf[at + 2] = (byte) (v >>> 8);
+            buf[at + 3] = (byte) v;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import jp.mydns.projectk.plugin.PluginExecutionException;
+
+/**
+ * Fetcher that runs the fetching of each partition of an {@link ImporterPlugin} at the same time. Each partition is
+ * fetched on a virtual thread, and the number of the partitions fetched at the same time is capped.
+ *
+ * <p>
+ * If fetching of one partition fails or is interrupted, fetching of all other partitions is interrupted. Likewise, if
+ * the calling thread is interrupted, fetching of all partitions is interrupted.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is immutable and thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class PartitionedFetcher {
+
+    private final int maxConcurrency;
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrency maximum number of the partitions fetched at the same time
+     * @throws IllegalArgumentException if {@code maxConcurrency} is less than 1
+     * @since 2.1.0
+     */
+    public PartitionedFetcher(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive.");
+        }
+
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Fetch content values of all partitions.
+     *
+     * @param plugin the importer plug-in
+     * @param entrance carry-in entrance of the fetched content. It is called from several threads at the same time, so
+     * it must be thread-safe.
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalStateException if {@code plugin} declares no partition
+     * @throws PluginExecutionException if processing cannot be continued
+     * @throws InterruptedException if interrupted
+     * @since 2.1.0
+     */
+    public void fetch(ImporterPlugin plugin, Consumer<Map<String, String>> entrance) throws InterruptedException {
+        Objects.requireNonNull(plugin);
+        Objects.requireNonNull(entrance);
+
+        final int partitions = plugin.getPartitionCount();
+
+        if (partitions < 1) {
+            throw new IllegalStateException("Importer plug-in must have one or more partitions.");
+        }
+
+        if (partitions == 1) {
+            plugin.fetchPartition(0, entrance);
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+
+        VirtualWorkers.run("fetch-partition-", Math.min(partitions, maxConcurrency), () -> {
+            for (int p = next.getAndIncrement(); p < partitions; p = next.getAndIncrement()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+
+                plugin.fetchPartition(p, entrance);
+            }
+        });
+    }
+}
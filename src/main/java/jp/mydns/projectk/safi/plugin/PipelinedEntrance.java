@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import jp.mydns.projectk.plugin.PluginExecutionException;
+
+/**
+ * Carry-in entrance that hands the fetched contents over to the downstream workers through a bounded queue. The
+ * fetching of the plug-in and the processing of the plug-in caller, such as conversion and persistence, overlap
+ * instead of running one after the other. The workers run on virtual threads.
+ *
+ * <p>
+ * If the queue is full, the carry-in blocks until a worker takes a content. If the downstream fails, the carry-in
+ * throws {@link EntranceCancelledException} so that the plug-in stops fetching, and the failure is thrown by
+ * {@link #complete()}. The final wrappers of the plug-in pass the exception through without counting it as a failure
+ * of the plug-in. If the fetching thread is interrupted while blocking, the workers are cancelled. If a worker is
+ * interrupted, this entrance is cancelled, and the carry-in throws {@link EntranceCancelledException}.
+ *
+ * <p>
+ * Usage.
+ * <pre>{@code
+ * PipelinedEntrance.fetch(plugin, downstream, 1000, 4);
+ * }</pre>
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class PipelinedEntrance implements Consumer<Map<String, String>>, AutoCloseable {
+
+    private static final Object END = new Object();
+    private static final long POLL_INTERVAL_MILLIS = 10;
+
+    private final Consumer<Map<String, String>> downstream;
+    private final BlockingQueue<Object> queue;
+    private final Thread[] workers;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+    private volatile boolean completing;
+
+    /**
+     * Constructor. The workers start immediately.
+     *
+     * @param downstream processing of a content. It is called from several threads at the same time, so it must be
+     * thread-safe.
+     * @param capacity capacity of the queue
+     * @param workers number of the workers
+     * @throws NullPointerException if {@code downstream} is {@code null}
+     * @throws IllegalArgumentException if {@code capacity} or {@code workers} is less than 1
+     * @since 2.1.0
+     */
+    public PipelinedEntrance(Consumer<Map<String, String>> downstream, int capacity, int workers) {
+        this.downstream = Objects.requireNonNull(downstream);
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of the workers must be positive.");
+        }
+
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workers = new Thread[workers];
+
+        Thread.Builder builder = Thread.ofVirtual().name("import-", 0);
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = builder.start(this::work);
+        }
+    }
+
+    /**
+     * Fetch content values by the plug-in, and process them by the downstream workers.
+     *
+     * @param plugin the importer plug-in
+     * @param downstream processing of a content. It is called from several threads at the same time, so it must be
+     * thread-safe.
+     * @param capacity capacity of the queue
+     * @param workers number of the workers
+     * @throws NullPointerException if {@code plugin} or {@code downstream} is {@code null}
+     * @throws IllegalArgumentException if {@code capacity} or {@code workers} is less than 1
+     * @throws PluginExecutionException if processing cannot be continued
+     * @throws RuntimeException the failure of the downstream, as it is thrown by the downstream
+     * @throws InterruptedException if interrupted
+     * @since 2.1.0
+     */
+    public static void fetch(ImporterPlugin plugin, Consumer<Map<String, String>> downstream, int capacity,
+        int workers) throws InterruptedException {
+        Objects.requireNonNull(plugin);
+
+        try (PipelinedEntrance entrance = new PipelinedEntrance(downstream, capacity, workers)) {
+            try {
+                plugin.fetch(entrance);
+            } catch (InterruptedException | RuntimeException ex) {
+                entrance.cancel();
+                entrance.awaitWorkers();
+                entrance.throwIfFailed();
+
+                if (!(ex instanceof InterruptedException) && Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+
+                throw ex;
+            }
+
+            entrance.complete();
+        }
+    }
+
+    /**
+     * Hand a content over to the downstream workers. Blocks while the queue is full.
+     *
+     * @param content the content
+     * @throws NullPointerException if {@code content} is {@code null}
+     * @throws IllegalStateException if already completed
+     * @throws EntranceCancelledException if the downstream failed, or if this entrance was cancelled or interrupted
+     * @since 2.1.0
+     */
+    @Override
+    public void accept(Map<String, String> content) {
+        Objects.requireNonNull(content);
+
+        if (completing) {
+            throw new IllegalStateException("Entrance is already completed.");
+        }
+
+        try {
+            enqueue(content);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new EntranceCancelledException("Interrupted while handing a content over.");
+        }
+    }
+
+    /**
+     * Wait until the downstream workers process all contents handed over, then end the workers.
+     *
+     * @throws RuntimeException the failure of the downstream, as it is thrown by the downstream
+     * @throws EntranceCancelledException if cancelled
+     * @throws InterruptedException if interrupted. The workers are cancelled.
+     * @since 2.1.0
+     */
+    public void complete() throws InterruptedException {
+        completing = true;
+
+        try {
+            for (int i = 0; i < workers.length; i++) {
+                enqueue(END);
+            }
+
+            for (Thread w : workers) {
+                w.join();
+            }
+        } catch (EntranceCancelledException ex) {
+            awaitWorkers();
+            throwIfFailed();
+            throw ex;
+        } catch (InterruptedException ex) {
+            cancel();
+            throw ex;
+        }
+
+        throwIfFailed();
+    }
+
+    /**
+     * Cancel the downstream workers. Contents not yet processed are discarded.
+     *
+     * @since 2.1.0
+     */
+    public void cancel() {
+        cancelled = true;
+        queue.clear();
+
+        for (Thread w : workers) {
+            w.interrupt();
+        }
+    }
+
+    /**
+     * Cancel the downstream workers unless completed, and wait for them to end.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public void close() {
+        cancel();
+        awaitWorkers();
+    }
+
+    private void enqueue(Object element) throws InterruptedException {
+        while (!queue.offer(element, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (cancelled) {
+                throw new EntranceCancelledException("Downstream is cancelled.");
+            }
+        }
+
+        if (cancelled) {
+            queue.clear();
+            throw new EntranceCancelledException("Downstream is cancelled.");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void work() {
+        try {
+            while (true) {
+                Object element = queue.take();
+
+                if (element == END) {
+                    return;
+                }
+
+                downstream.accept((Map<String, String>) element);
+            }
+        } catch (InterruptedException ex) {
+            // Note:
+            // If the workers ended silently, the carry-in would wait forever for a free space of the queue. So an
+            // interruption from other than cancel() cancels this entrance as well.
+            Thread.currentThread().interrupt();
+
+            if (!cancelled) {
+                cancel();
+            }
+        } catch (Throwable ex) {
+            if (failure.compareAndSet(null, ex)) {
+                cancel();
+            }
+        }
+    }
+
+    private void awaitWorkers() {
+        boolean interrupted = false;
+
+        for (Thread w : workers) {
+            while (true) {
+                try {
+                    w.join();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void throwIfFailed() {
+        Throwable ex = failure.get();
+
+        if (ex instanceof RuntimeException re) {
+            throw re;
+        }
+
+        if (ex instanceof Error err) {
+            throw err;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.Objects;
+
+/**
+ * Metrics registry of the plug-in executions. The final wrappers of the abstract plug-in implementations, such as
+ * {@link ImporterPlugin.AbstractImporterPlugin#fetch(java.util.function.Consumer)}, report their measurements to the
+ * installed registry. The same measurements are recorded as JDK Flight Recorder events under the
+ * {@code jp.mydns.projectk.safi} category.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * <li>Each method is called on the hot path of the plug-in, so it must return quickly and must not throw
+ * exception.</li>
+ * </ul>
+ * <p>
+ * Implementation notes.
+ * <ul>
+ * <li>Each default implementation does nothing.</li>
+ * <li>Until a registry is installed, the wrappers do not measure anything except the JFR events enabled by a
+ * recording.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public interface PluginMetrics {
+
+    /**
+     * Metrics registry that records nothing.
+     *
+     * @since 2.1.0
+     */
+    PluginMetrics NOOP = new PluginMetrics() {
+    };
+
+    /**
+     * Record a fetch of an importer.
+     *
+     * @param plugin class name of the plug-in
+     * @param contents number of the carried-in contents
+     * @param elapsedNanos elapsed time of the fetch in nanoseconds
+     * @since 2.1.0
+     */
+    default void recordFetch(String plugin, long contents, long elapsedNanos) {
+    }
+
+    /**
+     * Record a carry-in of an importer. It is the time taken by the carry-in entrance of the plug-in caller.
+     *
+     * @param plugin class name of the plug-in
+     * @param latencyNanos elapsed time of the carry-in in nanoseconds
+     * @since 2.1.0
+     */
+    default void recordCarryIn(String plugin, long latencyNanos) {
+    }
+
+    /**
+     * Record a post-processing of an importer.
+     *
+     * @param plugin class name of the plug-in
+     * @param elapsedNanos elapsed time of the post-processing in nanoseconds
+     * @since 2.1.0
+     */
+    default void recordPost(String plugin, long elapsedNanos) {
+    }
+
+    /**
+     * Record an export of an exporter.
+     *
+     * @param plugin class name of the plug-in
+     * @param successes number of the sources recorded as success
+     * @param failures number of the sources recorded as failure
+     * @param elapsedNanos elapsed time of the export in nanoseconds
+     * @since 2.1.0
+     */
+    default void recordExport(String plugin, long successes, long failures, long elapsedNanos) {
+    }
+
+    /**
+     * Record executions of a function.
+     *
+     * @param function name of the function
+     * @param calls number of the executions
+     * @param elapsedNanos elapsed time of the executions in nanoseconds
+     * @since 2.1.0
+     */
+    default void recordExecution(String function, long calls, long elapsedNanos) {
+    }
+
+    /**
+     * Record that an unexpected exception thrown by a plug-in was replaced by {@link PluginUnknownException}.
+     *
+     * @param plugin class name of the plug-in, or name of the function
+     * @param operation name of the wrapper method
+     * @param exceptionClassName class name of the replaced exception
+     * @since 2.1.0
+     */
+    default void recordUnknownFailure(String plugin, String operation, String exceptionClassName) {
+    }
+
+    /**
+     * Install the metrics registry. It replaces the registry installed before.
+     *
+     * @param metrics metrics registry. Use {@link #NOOP} to uninstall.
+     * @throws NullPointerException if {@code metrics} is {@code null}
+     * @since 2.1.0
+     */
+    static void install(PluginMetrics metrics) {
+        Instrumentation.install(Objects.requireNonNull(metrics));
+    }
+
+    /**
+     * Get the installed metrics registry.
+     *
+     * @return installed metrics registry. If not installed, {@link #NOOP}.
+     * @since 2.1.0
+     */
+    static PluginMetrics installed() {
+        return Instrumentation.metrics();
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Binder of the plug-in properties to a record. Each record component is bound to the plug-in property of the same
+ * name, or of the name specified by {@link Key}. All properties are converted and validated at once, so that a plug-in
+ * reads its settings as plain fields of the record, and a wrong setting fails when the plug-in is loaded.
+ *
+ * <p>
+ * Supported component types and the JSON values bound to them are as follows.
+ * <ul>
+ * <li>{@code String} - string</li>
+ * <li>{@code int}, {@code Integer}, {@code long} and {@code Long} - integral number in range</li>
+ * <li>{@code double} and {@code Double} - number</li>
+ * <li>{@code boolean} and {@code Boolean} - {@code true} or {@code false}</li>
+ * <li>{@code Duration} - string in ISO-8601 duration format, such as {@code PT30S}</li>
+ * <li>{@code URI} - string in URI format</li>
+ * <li>{@code Optional} of the above types - the property may be missing</li>
+ * </ul>
+ * A missing property, or a property of JSON {@code null}, is an error unless the component is {@code Optional} or has
+ * {@link DefaultValue}.
+ *
+ * <p>
+ * Implementation notes.
+ * <ul>
+ * <li>The record is created by its canonical constructor, so the compact constructor can validate the values further.
+ * An {@code IllegalArgumentException} thrown by it is reported as a binding error.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see BatchPlugin.AbstractBatchPlugin#getPropertiesType()
+ */
+public final class PluginProperties {
+
+    private PluginProperties() {
+    }
+
+    /**
+     * Name of the plug-in property bound to the record component. If not annotated, the component name is used.
+     *
+     * @author riru
+     * @version 2.1.0
+     * @since 2.1.0
+     */
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.RECORD_COMPONENT)
+    public @interface Key {
+
+        /**
+         * Property name.
+         *
+         * @return property name
+         * @since 2.1.0
+         */
+        String value();
+    }
+
+    /**
+     * Value used if the plug-in property is missing. It is written in the same format as the property, without JSON
+     * quotes, such as {@code 100}, {@code true}, {@code PT30S} or {@code https://example.com}.
+     *
+     * @author riru
+     * @version 2.1.0
+     * @since 2.1.0
+     */
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.RECORD_COMPONENT)
+    public @interface DefaultValue {
+
+        /**
+         * Default value.
+         *
+         * @return default value
+         * @since 2.1.0
+         */
+        String value();
+    }
+
+    /**
+     * Bind the plug-in properties to a record.
+     *
+     * @param <T> record type
+     * @param props plug-in properties
+     * @param type record class
+     * @return the bound record
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if any property is missing or invalid. The message lists all errors. Also, if
+     * {@code type} is not a record or has a component of unsupported type.
+     * @since 2.1.0
+     */
+    public static <T extends Record> T bind(JsonObject props, Class<T> type) {
+        Objects.requireNonNull(props);
+        Objects.requireNonNull(type);
+
+        RecordComponent[] components = type.getRecordComponents();
+
+        if (components == null) {
+            throw new IllegalArgumentException("Plug-in properties type must be a record. " + type.getName());
+        }
+
+        Object[] values = new Object[components.length];
+        List<String> errors = new ArrayList<>();
+
+        for (int i = 0; i < components.length; i++) {
+            values[i] = bind(props, components[i], errors);
+        }
+
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid plug-in properties. " + String.join(" ", errors));
+        }
+
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor(
+                Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new));
+            constructor.setAccessible(true);
+
+            return constructor.newInstance(values);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof IllegalArgumentException cause) {
+                throw new IllegalArgumentException("Invalid plug-in properties. " + cause.getMessage(), cause);
+            }
+
+            throw new IllegalArgumentException("Cannot create the plug-in properties. " + type.getName(),
+                ex.getCause());
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            throw new IllegalArgumentException("Cannot create the plug-in properties. " + type.getName(), ex);
+        }
+    }
+
+    private static Object bind(JsonObject props, RecordComponent component, List<String> errors) {
+        String key = Optional.ofNullable(component.getAnnotation(Key.class)).map(Key::value)
+            .orElseGet(component::getName);
+        boolean optional = component.getType() == Optional.class;
+        Class<?> type = optional ? optionalType(component.getGenericType()) : component.getType();
+
+        if (type == null || !isSupported(type)) {
+            errors.add("Property '%s' has unsupported type %s.".formatted(key, component.getGenericType()));
+            return null;
+        }
+
+        JsonValue value = props.get(key);
+
+        if (value == null || value.getValueType() == JsonValue.ValueType.NULL) {
+            DefaultValue defaultValue = component.getAnnotation(DefaultValue.class);
+
+            if (defaultValue != null) {
+                Object converted = parse(type, defaultValue.value());
+
+                if (converted == null) {
+                    errors.add("Default value of property '%s' must be %s.".formatted(key, describe(type)));
+                }
+
+                return optional ? Optional.ofNullable(converted) : converted;
+            }
+
+            if (optional) {
+                return Optional.empty();
+            }
+
+            errors.add("Property '%s' is required.".formatted(key));
+            return null;
+        }
+
+        Object converted = convert(type, value);
+
+        if (converted == null) {
+            errors.add("Property '%s' must be %s.".formatted(key, describe(type)));
+        }
+
+        return optional ? Optional.ofNullable(converted) : converted;
+    }
+
+    private static Class<?> optionalType(Type genericType) {
+        return genericType instanceof ParameterizedType p && p.getActualTypeArguments()[0] instanceof Class<?> c
+            ? c : null;
+    }
+
+    private static boolean isSupported(Class<?> type) {
+        return type == String.class || type == int.class || type == Integer.class || type == long.class
+            || type == Long.class || type == double.class || type == Double.class || type == boolean.class
+            || type == Boolean.class || type == Duration.class || type == URI.class;
+    }
+
+    /**
+     * Convert a JSON value. Returns {@code null} if the value is invalid for the type.
+     */
+    private static Object convert(Class<?> type, JsonValue value) {
+        if (type == boolean.class || type == Boolean.class) {
+            return switch (value.getValueType()) {
+                case TRUE ->
+                    Boolean.TRUE;
+                case FALSE ->
+                    Boolean.FALSE;
+                default ->
+                    null;
+            };
+        }
+
+        if (type == int.class || type == Integer.class || type == long.class || type == Long.class
+            || type == double.class || type == Double.class) {
+            return value instanceof JsonNumber n ? parse(type, n.toString()) : null;
+        }
+
+        return value instanceof JsonString s ? parse(type, s.getString()) : null;
+    }
+
+    /**
+     * Convert a string value. Returns {@code null} if the value is invalid for the type.
+     */
+    private static Object parse(Class<?> type, String value) {
+        try {
+            if (type == String.class) {
+                return value;
+            }
+
+            if (type == int.class || type == Integer.class) {
+                return new BigDecimal(value).intValueExact();
+            }
+
+            if (type == long.class || type == Long.class) {
+                return new BigDecimal(value).longValueExact();
+            }
+
+            if (type == double.class || type == Double.class) {
+                return Double.valueOf(value);
+            }
+
+            if (type == boolean.class || type == Boolean.class) {
+                return switch (value) {
+                    case "true" ->
+                        Boolean.TRUE;
+                    case "false" ->
+                        Boolean.FALSE;
+                    default ->
+                        null;
+                };
+            }
+
+            if (type == Duration.class) {
+                return Duration.parse(value);
+            }
+
+            return new URI(value);
+        } catch (ArithmeticException | NumberFormatException | DateTimeParseException | URISyntaxException ex) {
+            return null;
+        }
+    }
+
+    private static String describe(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return "an integer between %d and %d".formatted(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+
+        if (type == long.class || type == Long.class) {
+            return "an integer between %d and %d".formatted(Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+
+        if (type == double.class || type == Double.class) {
+            return "a number";
+        }
+
+        if (type == boolean.class || type == Boolean.class) {
+            return "true or false";
+        }
+
+        if (type == Duration.class) {
+            return "an ISO-8601 duration string such as \"PT30S\"";
+        }
+
+        if (type == URI.class) {
+            return "a URI string";
+        }
+
+        return "a string";
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded concurrent cache of the function results. Keys are spread over independently locked stripes, and each
+ * stripe evicts its least recently used entry when it is full.
+ *
+ * <p>
+ * Implementation notes.
+ * <ul>
+ * <li>A result is calculated outside the lock, so concurrent misses of the same key may calculate twice. It is
+ * harmless because only the results of pure functions are cached.</li>
+ * <li>A {@code null} result is cached as well.</li>
+ * </ul>
+ *
+ * @param <K> type of the key
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class ResultCache<K> {
+
+    private static final int MAX_STRIPES = 16;
+    private static final int MIN_STRIPE_CAPACITY = 64;
+    private static final Object NULL = new Object();
+
+    private final Stripe<K>[] stripes;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize maximum number of the cached results
+     * @throws IllegalArgumentException if {@code maxSize} is less than 1
+     * @since 2.1.0
+     */
+    @SuppressWarnings("unchecked")
+    ResultCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+
+        int stripeCount = 1;
+        while (stripeCount < MAX_STRIPES && maxSize / (stripeCount * 2) >= MIN_STRIPE_CAPACITY) {
+            stripeCount *= 2;
+        }
+
+        int capacity = (maxSize + stripeCount - 1) / stripeCount;
+        this.stripes = (Stripe<K>[]) new Stripe<?>[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(capacity, evictions);
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * Get the cached result, or calculate and cache it.
+     *
+     * @param key cache key
+     * @param calculator calculator of the result
+     * @return result. It may be {@code null}.
+     * @since 2.1.0
+     */
+    String get(K key, Supplier<String> calculator) {
+        Stripe<K> stripe = stripeOf(key);
+
+        Object cached;
+        synchronized (stripe) {
+            cached = stripe.get(key);
+        }
+
+        if (cached != null) {
+            hits.increment();
+            return cached == NULL ? null : (String) cached;
+        }
+
+        misses.increment();
+        String result = calculator.get();
+
+        synchronized (stripe) {
+            stripe.put(key, result == null ? NULL : result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the statistics.
+     *
+     * @return statistics
+     * @since 2.1.0
+     */
+    ResultCacheStats getStats() {
+        long size = 0;
+        for (Stripe<K> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+
+        return new ResultCacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Stripe<K> stripeOf(K key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Stripe of the cache.
+     *
+     * @param <K> type of the key
+     * @since 2.1.0
+     */
+    @SuppressWarnings("serial")
+    private static final class Stripe<K> extends LinkedHashMap<K, Object> {
+
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Stripe(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Object> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
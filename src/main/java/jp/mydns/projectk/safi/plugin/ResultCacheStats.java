@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+/**
+ * Statistics of the result cache of a pure {@link FunctionPlugin}.
+ *
+ * @param hits number of the executions answered from the cache
+ * @param misses number of the executions that calculated a result
+ * @param evictions number of the results evicted from the cache
+ * @param size number of the results currently cached
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see FunctionPlugin#getResultCacheStats()
+ */
+public record ResultCacheStats(long hits, long misses, long evictions, long size) {
+
+    /**
+     * Statistics of a disabled cache.
+     *
+     * @since 2.1.0
+     */
+    public static final ResultCacheStats EMPTY = new ResultCacheStats(0, 0, 0, 0);
+
+    /**
+     * Get the ratio of the hits to all executions.
+     *
+     * @return hit ratio. If there is no execution, {@code 0.0}.
+     * @since 2.1.0
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
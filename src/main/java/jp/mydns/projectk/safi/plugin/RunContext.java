@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Context of a plug-in run. It conveys the time budget from the plug-in caller to the plug-in, and the progress from
+ * the plug-in to the plug-in caller.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * </ul>
+ * <p>
+ * Implementation notes.
+ * <ul>
+ * <li>The deadline is kept as a monotonic time, so it is not affected by changes of the system clock.</li>
+ * <li>Updating and reading the progress does not lock, so it can be called per content.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see BatchPlugin#getRunContext()
+ */
+public final class RunContext {
+
+    private static final long UNKNOWN = -1;
+
+    private final boolean bounded;
+    private final long deadlineNanos;
+    private final LongAdder processed = new LongAdder();
+    private volatile long estimatedTotal = UNKNOWN;
+
+    private RunContext(boolean bounded, long deadlineNanos) {
+        this.bounded = bounded;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Create a context without deadline.
+     *
+     * @return the context
+     * @since 2.1.0
+     */
+    public static RunContext unbounded() {
+        return new RunContext(false, 0);
+    }
+
+    /**
+     * Create a context that has the time budget from now.
+     *
+     * @param budget time budget
+     * @return the context
+     * @throws NullPointerException if {@code budget} is {@code null}
+     * @since 2.1.0
+     */
+    public static RunContext withBudget(Duration budget) {
+        long nanos;
+        try {
+            nanos = budget.toNanos();
+        } catch (ArithmeticException ex) {
+            nanos = budget.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+
+        long now = System.nanoTime();
+        return new RunContext(true, nanos > 0 ? now + Math.min(nanos, Long.MAX_VALUE / 2) : now);
+    }
+
+    /**
+     * Create a context that has the deadline.
+     *
+     * @param deadline the deadline
+     * @return the context
+     * @throws NullPointerException if {@code deadline} is {@code null}
+     * @since 2.1.0
+     */
+    public static RunContext withDeadline(Instant deadline) {
+        Objects.requireNonNull(deadline);
+        return withBudget(Duration.between(Instant.now(), deadline));
+    }
+
+    /**
+     * {@code true} if the deadline has passed.
+     *
+     * @return {@code true} if expired. If no deadline, always {@code false}.
+     * @since 2.1.0
+     */
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Get the remaining time budget.
+     *
+     * @return remaining time budget. It is zero if expired, and empty if no deadline.
+     * @since 2.1.0
+     */
+    public Optional<Duration> getRemaining() {
+        if (!bounded) {
+            return Optional.empty();
+        }
+
+        return Optional.of(Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime())));
+    }
+
+    /**
+     * Throw {@code DeadlineExceededException} if the deadline has passed.
+     *
+     * @throws DeadlineExceededException if expired
+     * @since 2.1.0
+     */
+    public void throwIfExpired() {
+        if (isExpired()) {
+            throw new DeadlineExceededException();
+        }
+    }
+
+    /**
+     * Add the number of the processed contents.
+     *
+     * @param count number of the contents processed since the last call
+     * @since 2.1.0
+     */
+    public void addProcessed(long count) {
+        processed.add(count);
+    }
+
+    /**
+     * Get the number of the processed contents.
+     *
+     * @return number of the processed contents
+     * @since 2.1.0
+     */
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * Set the estimated total number of the contents to process.
+     *
+     * @param total estimated total number
+     * @throws IllegalArgumentException if {@code total} is negative
+     * @since 2.1.0
+     */
+    public void setEstimatedTotal(long total) {
+        if (total < 0) {
+            throw new IllegalArgumentException("Estimated total must not be negative.");
+        }
+
+        this.estimatedTotal = total;
+    }
+
+    /**
+     * Get the estimated total number of the contents to process.
+     *
+     * @return estimated total number. It is empty if unknown.
+     * @since 2.1.0
+     */
+    public OptionalLong getEstimatedTotal() {
+        long total = estimatedTotal;
+        return total == UNKNOWN ? OptionalLong.empty() : OptionalLong.of(total);
+    }
+}
@@ -0,0 +1,941 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reference implementation of the {@link ImportResultContainer} backed by an append-only spill log. Results are
+ * written to segment files while the import runs, and are read back lazily by {@link #stream()}.
+ *
+ * <p>
+ * Appended results are gathered into a batch in memory, and each batch is written by one sequential write. The log
+ * consists of segment files named {@code results-<number>.seg}, and a new segment starts when the current one reaches
+ * the segment size. Each record has its length and checksum, so that {@link #recover(Path, long, SyncPolicy)} can
+ * detect a torn last record. The checksum is also verified when the records are read back, including the records and
+ * the content values that are skipped without decoding. If a write fails, the segment is truncated to the last complete
+ * record and none of the results gathered in the batch is appended, so that the results appended after the failure
+ * are still read.
+ *
+ * <p>
+ * The numbers of the results per kind and per success are kept while appending, so counting is O(1). The filtered
+ * streams and {@link #summaries()} skip the records and the content values they do not need without decoding them.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class SpillLogImportResultContainer implements ImportResultContainer, Closeable {
+
+    private static final int BATCH_BYTES = 1 << 20;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MIN_PAYLOAD_SIZE = 1 + Integer.BYTES * 4;
+    private static final int NULL_LENGTH = -1;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final JsonReaderFactory READERS = Json.createReaderFactory(Map.of());
+
+    private final Path directory;
+    private final long segmentSize;
+    private final SyncPolicy syncPolicy;
+    private final ChannelOpener opener;
+    private final List<Path> segments = new ArrayList<>();
+    private final Batch batch = new Batch();
+    private FileChannel channel;
+    private long segmentLength;
+    private final Map<String, Long> kindCounts = new HashMap<>();
+    private long count;
+    private long successCount;
+    private boolean closed;
+    private boolean broken;
+
+    private SpillLogImportResultContainer(Path directory, long segmentSize, SyncPolicy syncPolicy,
+        ChannelOpener opener) {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(syncPolicy);
+
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncPolicy = syncPolicy;
+        this.opener = opener;
+    }
+
+    /**
+     * Opener of the segment files.
+     *
+     * @since 2.1.0
+     */
+    @FunctionalInterface
+    interface ChannelOpener {
+
+        /**
+         * Open a file channel.
+         *
+         * @param path file path
+         * @param options open options
+         * @return the opened channel
+         * @throws IOException if occurs I/O error
+         * @since 2.1.0
+         */
+        FileChannel open(Path path, OpenOption... options) throws IOException;
+    }
+
+    /**
+     * Create an empty container in the directory.
+     *
+     * @param directory directory to place the segment files. It must exist and must not contain the segment files.
+     * @param segmentSize size in bytes at which a new segment starts
+     * @param syncPolicy policy of flushing the segment files to the storage device
+     * @return an empty container
+     * @throws NullPointerException if {@code directory} or {@code syncPolicy} is {@code null}
+     * @throws IllegalArgumentException if {@code segmentSize} is less than 1
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public static SpillLogImportResultContainer create(Path directory, long segmentSize, SyncPolicy syncPolicy) {
+        return create(directory, segmentSize, syncPolicy, FileChannel::open);
+    }
+
+    /**
+     * Create an empty container in the directory whose segment files are opened by {@code opener}.
+     *
+     * @param directory directory to place the segment files. It must exist and must not contain the segment files.
+     * @param segmentSize size in bytes at which a new segment starts
+     * @param syncPolicy policy of flushing the segment files to the storage device
+     * @param opener opener of the segment files for writing
+     * @return an empty container
+     * @throws NullPointerException if {@code directory} or {@code syncPolicy} is {@code null}
+     * @throws IllegalArgumentException if {@code segmentSize} is less than 1
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    static SpillLogImportResultContainer create(Path directory, long segmentSize, SyncPolicy syncPolicy,
+        ChannelOpener opener) {
+        SpillLogImportResultContainer container = new SpillLogImportResultContainer(directory, segmentSize, syncPolicy,
+            opener);
+        container.openSegment(0);
+        return container;
+    }
+
+    /**
+     * Recover a container from the segment files in the directory. All records are scanned, and the torn last record
+     * that was being written at the time of a crash is discarded. Recovered container can be appended further.
+     *
+     * @param directory directory that contains the segment files
+     * @param segmentSize size in bytes at which a new segment starts
+     * @param syncPolicy policy of flushing the segment files to the storage device
+     * @return the recovered container
+     * @throws NullPointerException if {@code directory} or {@code syncPolicy} is {@code null}
+     * @throws IllegalArgumentException if {@code segmentSize} is less than 1
+     * @throws UncheckedIOException if occurs I/O error, or if a record other than the last is broken
+     * @since 2.1.0
+     */
+    public static SpillLogImportResultContainer recover(Path directory, long segmentSize, SyncPolicy syncPolicy) {
+        SpillLogImportResultContainer container = new SpillLogImportResultContainer(directory, segmentSize, syncPolicy,
+            FileChannel::open);
+        container.recoverSegments();
+        return container;
+    }
+
+    /**
+     * Append a result.
+     *
+     * @param result import result
+     * @throws NullPointerException if {@code result} is {@code null}
+     * @throws IllegalStateException if already closed
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public synchronized void append(ImportResult result) {
+        Objects.requireNonNull(result);
+        requireOpen();
+
+        batch.encode(result);
+
+        if (batch.size() >= BATCH_BYTES) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Append results as a batch. Results are written by one sequential write.
+     *
+     * @param results import results
+     * @throws NullPointerException if {@code results} is {@code null} or if contains {@code null} in {@code results}
+     * @throws IllegalStateException if already closed
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public synchronized void appendAll(Collection<? extends ImportResult> results) {
+        results.forEach(Objects::requireNonNull);
+        requireOpen();
+
+        for (ImportResult r : results) {
+            batch.encode(r);
+        }
+
+        writeBatch();
+    }
+
+    /**
+     * Write the results gathered in memory to the segment file.
+     *
+     * @throws IllegalStateException if already closed
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    public synchronized void flush() {
+        requireOpen();
+        writeBatch();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized long count() {
+        return count + batch.results;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized long count(String kindName) {
+        Objects.requireNonNull(kindName);
+        return kindCounts.getOrDefault(kindName, 0L) + batch.kinds.getOrDefault(kindName, 0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized long count(boolean success) {
+        return success ? successCount + batch.successes
+            : count - successCount + batch.results - batch.successes;
+    }
+
+    /**
+     * Get all values stored in this. Values are read lazily from the segment files, and the content value is decoded
+     * when it is requested. The stream covers the results appended before this call.
+     *
+     * <p>
+     * The stream holds an open file, so close it if it is not consumed to the end.
+     *
+     * @return all values stored in this
+     * @throws IllegalStateException if already closed
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public Stream<ImportResult> stream() {
+        return stream(SpillLogImportResultContainer::decodeResult, () -> count);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Records of other kinds are skipped without decoding. The stream holds an open file, so close it if it is not
+     * consumed to the end.
+     *
+     * @throws IllegalStateException if already closed
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public Stream<ImportResult> stream(String kindName) {
+        byte[] kind = kindName.getBytes(UTF_8);
+
+        return stream(filtering((success, k) -> Arrays.equals(k, kind)),
+            () -> kindCounts.getOrDefault(kindName, 0L));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Records of the other success are skipped without decoding. The stream holds an open file, so close it if it is
+     * not consumed to the end.
+     *
+     * @throws IllegalStateException if already closed
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public Stream<ImportResult> stream(boolean success) {
+        return stream(filtering((s, k) -> s == success), () -> success ? successCount : count - successCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The content values are skipped without reading. The stream holds an open file, so close it if it is not
+     * consumed to the end.
+     *
+     * @throws IllegalStateException if already closed
+     * @throws UncheckedIOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public Stream<ImportResultSummary> summaries() {
+        return stream(SpillLogImportResultContainer::decodeSummary, () -> count);
+    }
+
+    private <T> Stream<T> stream(Decoder<T> decoder, LongSupplier counter) {
+        final List<Path> paths;
+        final long lastLength;
+        final long size;
+
+        synchronized (this) {
+            requireOpen();
+            writeBatch();
+
+            paths = List.copyOf(segments);
+            lastLength = segmentLength;
+            size = counter.getAsLong();
+        }
+
+        SegmentReader<T> reader = new SegmentReader<>(paths, lastLength, decoder);
+
+        return StreamSupport.stream(Spliterators.spliterator(reader, size,
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false).onClose(reader::close);
+    }
+
+    /**
+     * Write the remaining results and close the segment file. The segment files are not deleted.
+     *
+     * @throws IOException if occurs I/O error
+     * @since 2.1.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            writeBatch();
+
+            if (syncPolicy != SyncPolicy.NONE) {
+                channel.force(false);
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void counted(boolean success, String kindName) {
+        count++;
+
+        if (success) {
+            successCount++;
+        }
+
+        kindCounts.merge(kindName, 1L, Long::sum);
+    }
+
+    private void counted(long results, long successes, Map<String, Long> kinds) {
+        count += results;
+        successCount += successes;
+        kinds.forEach((k, n) -> kindCounts.merge(k, n, Long::sum));
+    }
+
+    private void requireOpen() {
+        if (closed) {
+            throw new IllegalStateException("Container is already closed.");
+        }
+    }
+
+    private void writeBatch() {
+        if (batch.size() == 0) {
+            return;
+        }
+
+        if (broken) {
+            batch.reset();
+            throw new UncheckedIOException(new IOException("Spill log could not be recovered from a failed write. "
+                + directory));
+        }
+
+        try {
+            if (segmentLength > 0 && segmentLength + batch.size() > segmentSize) {
+                nextSegment();
+            }
+
+            ByteBuffer buf = batch.toByteBuffer();
+
+            try {
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+
+                if (syncPolicy == SyncPolicy.BATCH) {
+                    channel.force(false);
+                }
+            } catch (IOException ex) {
+                discardTornBytes(ex);
+                throw new UncheckedIOException(ex);
+            }
+
+            // Note:
+            // The results are counted only after they are written, so that the counts never include a lost batch.
+            segmentLength += buf.limit();
+            counted(batch.results, batch.successes, batch.kinds);
+        } finally {
+            batch.reset();
+        }
+    }
+
+    /**
+     * Discard the bytes of a failed write. Torn bytes in the middle would make all later records unreadable.
+     */
+    private void discardTornBytes(IOException ex) {
+        try {
+            channel.truncate(segmentLength);
+            channel.position(segmentLength);
+        } catch (IOException suppressed) {
+            broken = true;
+            ex.addSuppressed(suppressed);
+        }
+    }
+
+    private void nextSegment() {
+        try {
+            if (syncPolicy != SyncPolicy.NONE) {
+                channel.force(false);
+            }
+
+            channel.close();
+            openSegment(segments.size());
+        } catch (IOException ex) {
+            broken = true;
+            throw new UncheckedIOException(ex);
+        } catch (UncheckedIOException ex) {
+            broken = true;
+            throw ex;
+        }
+    }
+
+    private void openSegment(int number) {
+        Path path = directory.resolve("results-%08d.seg".formatted(number));
+
+        try {
+            channel = opener.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        segments.add(path);
+        segmentLength = 0;
+    }
+
+    private void recoverSegments() {
+        List<Path> found;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            found = files.filter(p -> p.getFileName().toString().matches("results-\\d{8}\\.seg")).sorted().toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        if (found.isEmpty()) {
+            openSegment(0);
+            return;
+        }
+
+        try {
+            for (int i = 0; i < found.size(); i++) {
+                Path path = found.get(i);
+                long fileSize = Files.size(path);
+                long valid = scan(path, fileSize);
+                boolean last = i == found.size() - 1;
+
+                if (valid < fileSize && !last) {
+                    throw new IOException("Segment is broken. " + path);
+                }
+
+                segments.add(path);
+
+                if (last) {
+                    channel = opener.open(path, StandardOpenOption.WRITE);
+                    channel.truncate(valid);
+                    channel.position(valid);
+                    segmentLength = valid;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Scan the records of a segment file, and count the valid records. A record that runs past the end of the file,
+     * or whose checksum does not match and that ends at the end of the file, is a torn record, and scanning stops at
+     * it.
+     *
+     * @return length of the valid records from the beginning
+     * @throws IOException if occurs I/O error, or if a record followed by other bytes is broken
+     */
+    private long scan(Path path, long fileSize) throws IOException {
+        long pos = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path),
+            READ_BUFFER_SIZE))) {
+            CRC32C crc = new CRC32C();
+
+            while (fileSize - pos >= RECORD_HEADER_SIZE) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+
+                if (length < MIN_PAYLOAD_SIZE || length > fileSize - pos - RECORD_HEADER_SIZE) {
+                    break;
+                }
+
+                byte[] payload = in.readNBytes(length);
+                crc.reset();
+                crc.update(payload);
+
+                if ((int) crc.getValue() != checksum) {
+                    if (pos + RECORD_HEADER_SIZE + length < fileSize) {
+                        throw new IOException("Record is broken at " + pos + ". " + path);
+                    }
+
+                    break;
+                }
+
+                pos += RECORD_HEADER_SIZE + length;
+
+                ByteBuffer buf = ByteBuffer.wrap(payload);
+                boolean success = buf.get() != 0;
+                counted(success, SpilledResult.readString(buf));
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * Buffer of the encoded records to be written by one write.
+     */
+    private static final class Batch extends ByteArrayOutputStream {
+
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Long> kinds = new HashMap<>();
+        private long results;
+        private long successes;
+
+        Batch() {
+            super(BATCH_BYTES);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            kinds.clear();
+            results = 0;
+            successes = 0;
+        }
+
+        void encode(ImportResult result) {
+            int start = count;
+
+            writeInt(0);
+            writeInt(0);
+            write(result.isSuccess() ? 1 : 0);
+            writeString(result.getKindName());
+            writeString(result.getFormatName());
+            writeString(result.getMessage());
+            JsonObject value = result.getValue();
+            writeString(value != null ? value.toString() : null);
+
+            int length = count - start - RECORD_HEADER_SIZE;
+            crc.reset();
+            crc.update(buf, start + RECORD_HEADER_SIZE, length);
+            putInt(start, length);
+            putInt(start + 4, (int) crc.getValue());
+
+            results++;
+            successes += result.isSuccess() ? 1 : 0;
+            kinds.merge(result.getKindName(), 1L, Long::sum);
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        private void writeString(String s) {
+            if (s == null) {
+                writeInt(NULL_LENGTH);
+                return;
+            }
+
+            byte[] bytes = s.getBytes(UTF_8);
+            writeInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        private void writeInt(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+
+        private void putInt(int at, int v) {
+            buf[at] = (byte) (v >>> 24);
+            buf[at + 1] = (byte) (v >>> 16);
+            buf[at + 2] = (byte) (v >>> 8);
+            buf[at + 3] = (byte) v;
+        }
+    }
+
+    private static ImportResult decodeResult(DataInputStream in, int length) throws IOException {
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+
+        ByteBuffer buf = ByteBuffer.wrap(payload);
+        boolean success = buf.get() != 0;
+        String kindName = SpilledResult.readString(buf);
+
+        return SpilledResult.decode(success, kindName, buf);
+    }
+
+    private static Decoder<ImportResult> filtering(RecordFilter filter) {
+        return (in, length) -> {
+            boolean success = in.readByte() != 0;
+            int kindLength = in.readInt();
+            byte[] kind = kindLength == NULL_LENGTH ? null : in.readNBytes(kindLength);
+            int rest = length - 1 - Integer.BYTES - Math.max(kindLength, 0);
+
+            if (!filter.test(success, kind)) {
+                in.skipNBytes(rest);
+                return null;
+            }
+
+            byte[] payload = new byte[rest];
+            in.readFully(payload);
+
+            String kindName = kind == null ? null : new String(kind, UTF_8);
+
+            return SpilledResult.decode(success, kindName, ByteBuffer.wrap(payload));
+        };
+    }
+
+    private static ImportResultSummary decodeSummary(DataInputStream in, int length) throws IOException {
+        boolean success = in.readByte() != 0;
+        String kindName = readString(in);
+        String formatName = readString(in);
+        String message = readString(in);
+        int valueLength = in.readInt();
+
+        if (valueLength > 0) {
+            in.skipNBytes(valueLength);
+        }
+
+        return new ImportResultSummary(success, kindName, formatName, message);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length == NULL_LENGTH ? null : new String(in.readNBytes(length), UTF_8);
+    }
+
+    /**
+     * Decoder of a record payload.
+     *
+     * @param <T> type of the decoded value
+     */
+    @FunctionalInterface
+    private interface Decoder<T> {
+
+        /**
+         * Decode a record payload. It must read exactly {@code length} bytes.
+         *
+         * @return decoded value. If {@code null}, the record is skipped.
+         */
+        T decode(DataInputStream in, int length) throws IOException;
+    }
+
+    /**
+     * Filter of the records by the leading fields of the payload.
+     */
+    @FunctionalInterface
+    private interface RecordFilter {
+
+        boolean test(boolean success, byte[] kindName);
+    }
+
+    /**
+     * Reader of the records over all segment files.
+     *
+     * @param <T> type of the decoded value
+     */
+    private static final class SegmentReader<T> implements Iterator<T>, Closeable {
+
+        private final List<Path> paths;
+        private final long lastLength;
+        private final Decoder<T> decoder;
+        private final CRC32C crc = new CRC32C();
+        private int segment = -1;
+        private DataInputStream in;
+        private long remaining;
+        private T next;
+
+        SegmentReader(List<Path> paths, long lastLength, Decoder<T> decoder) {
+            this.paths = paths;
+            this.lastLength = lastLength;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = readNext();
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            T r = next;
+            next = null;
+            return r;
+        }
+
+        @Override
+        public void close() {
+            InputStream closing = in;
+            in = null;
+            segment = paths.size();
+            remaining = 0;
+
+            if (closing != null) {
+                try {
+                    closing.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+
+        private T readNext() {
+            try {
+                while (true) {
+                    while (remaining < RECORD_HEADER_SIZE) {
+                        if (in != null) {
+                            in.close();
+                            in = null;
+                        }
+
+                        if (++segment >= paths.size()) {
+                            return null;
+                        }
+
+                        Path path = paths.get(segment);
+                        remaining = segment == paths.size() - 1 ? lastLength : Files.size(path);
+                        // Note:
+                        // The checksum is computed under the decoder, so that the skipped bytes are verified as well.
+                        in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(
+                            Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ)),
+                            READ_BUFFER_SIZE), crc));
+                    }
+
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+
+                    if (length < MIN_PAYLOAD_SIZE || length > remaining - RECORD_HEADER_SIZE) {
+                        throw new IOException("Record length is broken. " + paths.get(segment));
+                    }
+
+                    remaining -= RECORD_HEADER_SIZE + length;
+
+                    crc.reset();
+                    T decoded = decoder.decode(in, length);
+
+                    if ((int) crc.getValue() != checksum) {
+                        throw new IOException("Record checksum mismatch. " + paths.get(segment));
+                    }
+
+                    if (decoded != null) {
+                        return decoded;
+                    }
+                }
+            } catch (EOFException ex) {
+                throw new UncheckedIOException("Segment is truncated.", ex);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Import result read from the spill log. The content value is decoded on demand.
+     */
+    private static final class SpilledResult implements ImportResult {
+
+        private final boolean success;
+        private final String kindName;
+        private final String formatName;
+        private final String message;
+        private final byte[] payload;
+        private final int valueOffset;
+        private final int valueLength;
+
+        private SpilledResult(boolean success, String kindName, String formatName, String message, byte[] payload,
+            int valueOffset, int valueLength) {
+            this.success = success;
+            this.kindName = kindName;
+            this.formatName = formatName;
+            this.message = message;
+            this.payload = payload;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+        }
+
+        /**
+         * Decode the rest of a payload after the result kind.
+         *
+         * @param success {@code true} if import was successful
+         * @param kindName result kind
+         * @param buf the payload, positioned after the result kind
+         * @return the result
+         */
+        static SpilledResult decode(boolean success, String kindName, ByteBuffer buf) {
+            String formatName = readString(buf);
+            String message = readString(buf);
+            int valueLength = buf.getInt();
+
+            return new SpilledResult(success, kindName, formatName, message, buf.array(), buf.position(),
+                valueLength);
+        }
+
+        static String readString(ByteBuffer buf) {
+            int length = buf.getInt();
+
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+
+            String s = new String(buf.array(), buf.position(), length, UTF_8);
+            buf.position(buf.position() + length);
+            return s;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Override
+        public String getKindName() {
+            return kindName;
+        }
+
+        @Override
+        public String getFormatName() {
+            return formatName;
+        }
+
+        @Override
+        public JsonObject getValue() {
+            if (valueLength == NULL_LENGTH) {
+                return null;
+            }
+
+            try (JsonReader r = READERS.createReader(new ByteArrayInputStream(payload, valueOffset, valueLength),
+                UTF_8)) {
+                return r.readObject();
+            }
+        }
+
+        @Override
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonPatch;
+import jakarta.json.JsonPatchBuilder;
+import jakarta.json.JsonValue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Member-level difference between the previous content value and the current content value. Each member is
+ * represented by a JSON Pointer (RFC 6901). Nested objects are compared member by member, and other values, including
+ * arrays, are compared as a whole.
+ *
+ * <p>
+ * Implementation requirements.
+ * <ul>
+ * <li>This class is immutable and thread-safe.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ * @see ExportSource#getDiff()
+ */
+public final class ValueDiff {
+
+    /**
+     * Difference that has no change.
+     *
+     * @since 2.1.0
+     */
+    public static final ValueDiff EMPTY = new ValueDiff(List.of(), List.of(), List.of());
+
+    private final List<String> added;
+    private final List<String> removed;
+    private final List<String> changed;
+
+    private ValueDiff(List<String> added, List<String> removed, List<String> changed) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+    }
+
+    /**
+     * Create a difference from paths.
+     *
+     * @param added paths of the added members
+     * @param removed paths of the removed members
+     * @param changed paths of the changed members
+     * @return the difference
+     * @throws NullPointerException if any argument is {@code null} or if contains {@code null} in the arguments
+     * @since 2.1.0
+     */
+    public static ValueDiff ofPaths(List<String> added, List<String> removed, List<String> changed) {
+        if (added.isEmpty() && removed.isEmpty() && changed.isEmpty()) {
+            return EMPTY;
+        }
+
+        return new ValueDiff(List.copyOf(added), List.copyOf(removed), List.copyOf(changed));
+    }
+
+    /**
+     * Compute the difference between two content values.
+     *
+     * @param previous previous content value. If new, it is {@code null}.
+     * @param value content value. In case of deletion, it is {@code null}.
+     * @return the difference
+     * @since 2.1.0
+     */
+    public static ValueDiff of(JsonObject previous, JsonObject value) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+
+        compare("", Objects.requireNonNullElse(previous, JsonValue.EMPTY_JSON_OBJECT),
+            Objects.requireNonNullElse(value, JsonValue.EMPTY_JSON_OBJECT), added, removed, changed);
+
+        return ofPaths(added, removed, changed);
+    }
+
+    /**
+     * {@code true} if no member is added, removed, or changed.
+     *
+     * @return {@code true} if there is no change
+     * @since 2.1.0
+     */
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /**
+     * Get paths of the added members.
+     *
+     * @return paths of the added members. It is unmodifiable.
+     * @since 2.1.0
+     */
+    public List<String> getAdded() {
+        return added;
+    }
+
+    /**
+     * Get paths of the removed members.
+     *
+     * @return paths of the removed members. It is unmodifiable.
+     * @since 2.1.0
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Get paths of the changed members.
+     *
+     * @return paths of the changed members. It is unmodifiable.
+     * @since 2.1.0
+     */
+    public List<String> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Convert to the JSON Patch (RFC 6902) that changes the previous content value to the current content value.
+     *
+     * @param value the current content value. In case of deletion, it is {@code null}.
+     * @return the JSON Patch
+     * @throws jakarta.json.JsonException if {@code value} does not correspond to this difference
+     * @since 2.1.0
+     */
+    public JsonPatch toJsonPatch(JsonObject value) {
+        JsonPatchBuilder builder = Json.createPatchBuilder();
+
+        removed.forEach(builder::remove);
+        added.forEach(p -> builder.add(p, value.getValue(p)));
+        changed.forEach(p -> builder.replace(p, value.getValue(p)));
+
+        return builder.build();
+    }
+
+    /**
+     * Returns a string representation.
+     *
+     * @return a string representation
+     * @since 2.1.0
+     */
+    @Override
+    public String toString() {
+        return "ValueDiff{added=" + added + ", removed=" + removed + ", changed=" + changed + "}";
+    }
+
+    private static void compare(String base, JsonObject previous, JsonObject value, List<String> added,
+        List<String> removed, List<String> changed) {
+        for (Map.Entry<String, JsonValue> e : previous.entrySet()) {
+            if (!value.containsKey(e.getKey())) {
+                removed.add(base + "/" + escape(e.getKey()));
+            }
+        }
+
+        for (Map.Entry<String, JsonValue> e : value.entrySet()) {
+            String path = base + "/" + escape(e.getKey());
+            JsonValue before = previous.get(e.getKey());
+            JsonValue after = e.getValue();
+
+            if (before == null) {
+                added.add(path);
+            } else if (before instanceof JsonObject b && after instanceof JsonObject a) {
+                compare(path, b, a, added, removed, changed);
+            } else if (!before.equals(after)) {
+                changed.add(path);
+            }
+        }
+    }
+
+    private static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+}
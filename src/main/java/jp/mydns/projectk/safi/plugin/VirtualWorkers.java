@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runner of the concurrent workers on virtual threads. If one worker fails, all other workers are interrupted and the
+ * failure is thrown to the caller.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+final class VirtualWorkers {
+
+    private VirtualWorkers() {
+    }
+
+    /**
+     * Work of a worker.
+     *
+     * @since 2.1.0
+     */
+    @FunctionalInterface
+    interface Work {
+
+        /**
+         * Do work.
+         *
+         * @throws InterruptedException if interrupted
+         * @since 2.1.0
+         */
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Run the work concurrently and wait for all of them to complete.
+     *
+     * @param name base name of the worker threads
+     * @param workers number of the workers
+     * @param work work of each worker
+     * @throws IllegalArgumentException if {@code workers} is less than 1
+     * @throws InterruptedException if interrupted while waiting, or if a worker is interrupted
+     * @since 2.1.0
+     */
+    static void run(String name, int workers, Work work) throws InterruptedException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be positive.");
+        }
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory())) {
+            CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+
+            for (int i = 0; i < workers; i++) {
+                completion.submit(() -> {
+                    work.run();
+                    return null;
+                });
+            }
+
+            try {
+                for (int i = 0; i < workers; i++) {
+                    completion.take().get();
+                }
+            } catch (ExecutionException ex) {
+                executor.shutdownNow();
+                throw rethrow(ex.getCause());
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                throw ex;
+            }
+        }
+    }
+
+    private static InterruptedException rethrow(Throwable cause) {
+        return switch (cause) {
+            case InterruptedException ex ->
+                ex;
+            case RuntimeException ex ->
+                throw ex;
+            case Error ex ->
+                throw ex;
+            default ->
+                throw new IllegalStateException("Unexpected checked exception.");
+        };
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jp.mydns.projectk.safi.plugin.AsyncReporter.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link AsyncReporter}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class AsyncReporterTest {
+
+    @Test
+    void testCollapseDuplicates() throws InterruptedException {
+        List<String> reported = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (AsyncReporter reporter = new AsyncReporter(m -> {
+            if ("first".equals(m)) {
+                entered.countDown();
+                await(release);
+            }
+            reported.add(m);
+        })) {
+            reporter.accept("first");
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 5; i++) {
+                reporter.accept("same");
+            }
+            reporter.accept("other");
+            reporter.accept(null);
+            reporter.accept(null);
+
+            release.countDown();
+        }
+
+        assertEquals(List.of("first", "same (repeated 5 times)", "other", "null (repeated 2 times)"), reported);
+    }
+
+    @Test
+    void testSuppressedSummaryOnClose() {
+        List<String> reported = Collections.synchronizedList(new ArrayList<>());
+
+        try (AsyncReporter reporter = new AsyncReporter(reported::add, 16, OverflowPolicy.DROP, 1)) {
+            reporter.accept("m1");
+            reporter.accept("m2");
+            reporter.accept("m3");
+        }
+
+        assertEquals(List.of("m1", "2 messages were suppressed by the rate limit."), reported);
+    }
+
+    @Test
+    void testDroppedSummary() throws InterruptedException {
+        List<String> reported = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (AsyncReporter reporter = new AsyncReporter(m -> {
+            if ("first".equals(m)) {
+                entered.countDown();
+                await(release);
+            }
+            reported.add(m);
+        }, 1, OverflowPolicy.DROP, 0)) {
+            reporter.accept("first");
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+            reporter.accept("kept1");
+            reporter.accept("kept2");
+            reporter.accept("lost1");
+            reporter.accept("lost2");
+
+            assertEquals(2, reporter.getDropped());
+            release.countDown();
+        }
+
+        assertEquals(List.of("first", "2 messages were dropped because the reporter was full.", "kept1", "kept2"),
+            reported);
+    }
+
+    @Test
+    void testSynchronousAfterClose() {
+        List<String> reported = new ArrayList<>();
+        AsyncReporter reporter = new AsyncReporter(reported::add);
+
+        reporter.accept("before");
+        reporter.close();
+
+        assertEquals(List.of("before"), reported);
+
+        reporter.accept("after");
+
+        assertEquals(List.of("before", "after"), reported);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
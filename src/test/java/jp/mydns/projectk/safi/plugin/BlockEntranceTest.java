@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test of the {@link BlockEntrance}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class BlockEntranceTest {
+
+    @Test
+    void testBlocks() {
+        List<List<Map<String, String>>> blocks = new ArrayList<>();
+        BlockEntrance entrance = new BlockEntrance(blocks::add, 3);
+
+        for (int i = 0; i < 7; i++) {
+            entrance.accept(content(i));
+        }
+
+        assertEquals(List.of(List.of(content(0), content(1), content(2)), List.of(content(3), content(4), content(5))),
+            blocks);
+
+        entrance.flush();
+
+        assertEquals(3, blocks.size());
+        assertEquals(List.of(content(6)), blocks.get(2));
+    }
+
+    @Test
+    void testFlushEmpty() {
+        List<List<Map<String, String>>> blocks = new ArrayList<>();
+        BlockEntrance entrance = new BlockEntrance(blocks::add, 2);
+
+        entrance.flush();
+        entrance.accept(content(0));
+        entrance.accept(content(1));
+        entrance.flush();
+
+        assertEquals(List.of(List.of(content(0), content(1))), blocks);
+    }
+
+    /**
+     * A carried-in block belongs to the entrance, so it is not modified by the following contents.
+     */
+    @Test
+    void testBlockNotReused() {
+        List<List<Map<String, String>>> blocks = new ArrayList<>();
+        BlockEntrance entrance = new BlockEntrance(blocks::add, 1);
+
+        entrance.accept(content(0));
+        entrance.accept(content(1));
+
+        assertEquals(List.of(List.of(content(0)), List.of(content(1))), blocks);
+        assertNotSame(blocks.get(0), blocks.get(1));
+    }
+
+    @Test
+    void testInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BlockEntrance(b -> {
+        }, 0));
+        assertThrows(NullPointerException.class, () -> new BlockEntrance(null, 1));
+    }
+
+    private static Map<String, String> content(int i) {
+        return Map.of("id", String.valueOf(i));
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jp.mydns.projectk.safi.plugin.ExporterPlugin.AbstractExporterPlugin;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the parallel export of the {@link AbstractExporterPlugin}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class ExporterPluginTest {
+
+    /**
+     * Workers wait for a part held by another worker, so all workers take part even if the sources cannot be split.
+     */
+    @Test
+    void testAllWorkersTakePartWithUnsplittableSources() throws InterruptedException {
+        int workers = 4;
+        CountDownLatch allStarted = new CountDownLatch(workers);
+        AtomicInteger timedOut = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Set<String> exported = ConcurrentHashMap.newKeySet();
+
+        TestExporter exporter = new TestExporter(p -> p.exportInParallelForTest(source -> {
+            threads.add(Thread.currentThread().getName());
+            exported.add(source.getId());
+            allStarted.countDown();
+
+            if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                timedOut.incrementAndGet();
+            }
+        }));
+        exporter.setPluginProperties(Json.createObjectBuilder()
+            .add(AbstractExporterPlugin.EXPORT_CONCURRENCY, workers).build());
+
+        exporter.doExport(new ListContainer(sources(40), false));
+
+        assertEquals(0, timedOut.get());
+        assertEquals(workers, threads.size());
+        assertEquals(40, exported.size());
+    }
+
+    @Test
+    void testExportInChunks() throws InterruptedException {
+        List<List<String>> chunks = new ArrayList<>();
+
+        TestExporter exporter = new TestExporter(p -> p.exportInChunksForTest(chunk -> {
+            synchronized (chunks) {
+                chunks.add(chunk.stream().map(ExportSource::getId).collect(Collectors.toList()));
+            }
+            return List.of();
+        }));
+        exporter.setPluginProperties(Json.createObjectBuilder()
+            .add(AbstractExporterPlugin.EXPORT_CONCURRENCY, 3)
+            .add(AbstractExporterPlugin.EXPORT_CHUNK_SIZE, 7).build());
+
+        exporter.doExport(new ListContainer(sources(100), true));
+
+        Set<String> exported = new LinkedHashSet<>();
+        for (List<String> chunk : chunks) {
+            assertTrue(!chunk.isEmpty() && chunk.size() <= 7, chunk.toString());
+            chunk.forEach(id -> assertTrue(exported.add(id), id));
+        }
+        assertEquals(100, exported.size());
+    }
+
+    @Test
+    void testExportEmpty() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+
+        TestExporter exporter = new TestExporter(p -> p.exportInParallelForTest(source -> calls.incrementAndGet()));
+        exporter.setPluginProperties(Json.createObjectBuilder()
+            .add(AbstractExporterPlugin.EXPORT_CONCURRENCY, 4).build());
+
+        exporter.doExport(new ListContainer(List.of(), false));
+
+        assertEquals(0, calls.get());
+    }
+
+    /**
+     * A failure of a worker stops the other workers and is thrown to the caller.
+     */
+    @Test
+    void testFailureStopsAllWorkers() {
+        AtomicInteger calls = new AtomicInteger();
+
+        TestExporter exporter = new TestExporter(p -> p.exportInParallelForTest(source -> {
+            if (calls.incrementAndGet() == 5) {
+                throw new IllegalStateException("failed");
+            }
+            Thread.sleep(1);
+        }));
+        exporter.setPluginProperties(Json.createObjectBuilder()
+            .add(AbstractExporterPlugin.EXPORT_CONCURRENCY, 4).build());
+
+        assertThrows(PluginUnknownException.class, () -> exporter.doExport(new ListContainer(sources(10_000), true)));
+        assertTrue(calls.get() < 10_000);
+    }
+
+    private static List<ExportSource> sources(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new TestSource("id" + i, Json.createObjectBuilder().add("n", i).build()))
+            .collect(Collectors.toList());
+    }
+
+    @FunctionalInterface
+    private interface Processing {
+
+        void run(TestExporter plugin) throws InterruptedException;
+    }
+
+    private static final class TestExporter extends AbstractExporterPlugin {
+
+        private final Processing processing;
+        private ExportSourceContainer sources;
+
+        TestExporter(Processing processing) {
+            this.processing = processing;
+        }
+
+        @Override
+        public void doExportProcessing(ExportSourceContainer sources) throws InterruptedException {
+            this.sources = sources;
+            processing.run(this);
+        }
+
+        void exportInParallelForTest(SourceExporter exporter) throws InterruptedException {
+            exportInParallel(sources, exporter);
+        }
+
+        void exportInChunksForTest(ChunkExporter exporter) throws InterruptedException {
+            exportInChunks(sources, exporter);
+        }
+    }
+
+    private record TestSource(String getId, JsonObject getValue) implements ExportSource {
+
+        @Override
+        public JsonObject getPrevious() {
+            return null;
+        }
+    }
+
+    /**
+     * Container over a list. Its spliterator can be made unsplittable and slow to advance.
+     */
+    private record ListContainer(List<ExportSource> sources, boolean splittable) implements ExportSourceContainer {
+
+        @Override
+        public Stream<ExportSource> stream() {
+            if (splittable) {
+                return sources.stream();
+            }
+
+            Spliterator<ExportSource> spliterator = new Spliterators.AbstractSpliterator<>(sources.size(),
+                Spliterator.ORDERED | Spliterator.SIZED) {
+                private int next;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super ExportSource> action) {
+                    if (next >= sources.size()) {
+                        return false;
+                    }
+                    // Hold the part for a while, so that the other workers find no part to take.
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                    action.accept(sources.get(next++));
+                    return true;
+                }
+
+                @Override
+                public Spliterator<ExportSource> trySplit() {
+                    return null;
+                }
+            };
+
+            return StreamSupport.stream(spliterator, false);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return sources.isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return sources.size();
+        }
+
+        @Override
+        public boolean containsKey(String key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return sources.stream().map(ExportSource::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        @Override
+        public ExportSource get(String key) {
+            Map<String, ExportSource> byId = sources.stream()
+                .collect(Collectors.toMap(ExportSource::getId, s -> s));
+            return byId.get(key);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Test of the {@link FileCheckpointStore}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class FileCheckpointStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testCommitLoadClear() {
+        Path file = dir.resolve("cursor");
+        FileCheckpointStore store = new FileCheckpointStore(file);
+
+        assertEquals(Optional.empty(), store.load());
+
+        store.commit("cursor-1");
+        assertEquals(Optional.of("cursor-1"), store.load());
+
+        store.commit("c2");
+        assertEquals(Optional.of("c2"), new FileCheckpointStore(file).load());
+        assertFalse(Files.exists(dir.resolve("cursor.tmp")));
+
+        store.clear();
+        assertEquals(Optional.empty(), store.load());
+        assertFalse(Files.exists(file));
+
+        store.clear();
+    }
+
+    /**
+     * A temporary file left by an interrupted commit is neither loaded nor mixed into the next commit.
+     */
+    @Test
+    void testLeftoverTemporaryFile() throws IOException {
+        Path file = dir.resolve("cursor");
+        FileCheckpointStore store = new FileCheckpointStore(file);
+
+        store.commit("committed");
+        Files.writeString(dir.resolve("cursor.tmp"), "a torn cursor that is longer than the next one", UTF_8);
+
+        assertEquals(Optional.of("committed"), store.load());
+
+        store.commit("next");
+
+        assertEquals(Optional.of("next"), store.load());
+        assertFalse(Files.exists(dir.resolve("cursor.tmp")));
+    }
+}
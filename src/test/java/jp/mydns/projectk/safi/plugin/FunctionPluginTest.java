@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import jp.mydns.projectk.formula.Function.Argument;
+import jp.mydns.projectk.formula.Function.ArgumentScheme;
+import jp.mydns.projectk.safi.plugin.FunctionPlugin.AbstractFunctionPlugin;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test of the {@link FunctionPlugin}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class FunctionPluginTest {
+
+    private static final Argument A = proxy(Argument.class, "a");
+    private static final Argument B = proxy(Argument.class, "b");
+
+    @Test
+    void testExecuteAll() {
+        JoinFunction function = new JoinFunction(false);
+
+        assertEquals(List.of("a+b", "b+a"), function.executeAll(List.of(new Argument[]{A, B}, new Argument[]{B, A})));
+        assertEquals(List.of(), function.executeAll(List.of()));
+    }
+
+    @Test
+    void testExecuteAllWithWrongArity() {
+        JoinFunction function = new JoinFunction(false);
+        List<Argument[]> argsList = List.of(new Argument[]{A, B}, new Argument[]{A, B}, new Argument[]{A});
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> function.executeAll(argsList));
+
+        assertEquals("Tuple 2 has 1 arguments, but 2 are expected.", ex.getMessage());
+        assertEquals(0, function.calculated);
+    }
+
+    @Test
+    void testExecuteAllWithNullTuple() {
+        JoinFunction function = new JoinFunction(false);
+
+        assertThrows(NullPointerException.class,
+            () -> function.executeAll(Arrays.asList(new Argument[]{A}, null)));
+        assertThrows(NullPointerException.class, () -> function.executeAll(null));
+    }
+
+    @Test
+    void testExecuteAllWithWrongNumberOfResults() {
+        JoinFunction function = new JoinFunction(true);
+
+        assertThrows(PluginUnknownException.class,
+            () -> function.executeAll(List.of(new Argument[]{A}, new Argument[]{B})));
+    }
+
+    @Test
+    void testDefaultExecuteAllWithWrongArity() {
+        FunctionPlugin function = (FunctionPlugin) Proxy.newProxyInstance(FunctionPlugin.class.getClassLoader(),
+            new Class<?>[]{FunctionPlugin.class}, (p, m, a) -> {
+                if (m.isDefault()) {
+                    return InvocationHandler.invokeDefault(p, m, a);
+                }
+                throw new UnsupportedOperationException(m.getName());
+            });
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> function.executeAll(List.of(new Argument[]{}, new Argument[]{A})));
+
+        assertEquals("Tuple 1 has 1 arguments, but 0 are expected.", ex.getMessage());
+    }
+
+    private static <T> T proxy(Class<T> type, String value) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, m, a) -> {
+            return switch (m.getName()) {
+                case "requireValid" ->
+                    a[0];
+                case "toString" ->
+                    value;
+                case "equals" ->
+                    p == a[0];
+                case "hashCode" ->
+                    System.identityHashCode(p);
+                default ->
+                    throw new UnsupportedOperationException(m.getName());
+            };
+        }));
+    }
+
+    /**
+     * Function that joins the arguments by "+".
+     */
+    static class JoinFunction extends AbstractFunctionPlugin {
+
+        private static final ArgumentScheme SCHEME = proxy(ArgumentScheme.class, "scheme");
+
+        private final boolean dropsResult;
+        private int calculated;
+
+        JoinFunction(boolean dropsResult) {
+            this.dropsResult = dropsResult;
+        }
+
+        @Override
+        public String getName() {
+            return "join";
+        }
+
+        @Override
+        public ArgumentScheme getArgumentScheme() {
+            return SCHEME;
+        }
+
+        @Override
+        protected String calculate(Argument... args) {
+            calculated++;
+            return String.join("+", Arrays.stream(args).map(Object::toString).toList());
+        }
+
+        @Override
+        protected String[] calculateAll(List<Argument[]> validArgsList) {
+            String[] results = super.calculateAll(validArgsList);
+            return dropsResult ? Arrays.copyOf(results, results.length - 1) : results;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link LazyJsonObject}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class LazyJsonObjectTest {
+
+    private static final String JSON = """
+        {"s":"text","n":12.5,"i":7,"t":true,"f":false,"z":null,"o":{"a":[1,{"b":2}]},"a":[{"c":"d"},[]],"e":{}}""";
+
+    @Test
+    void testSameAsEager() {
+        JsonObject eager = eager(JSON);
+
+        for (String name : List.of("s", "n", "i", "t", "f", "z", "o", "a", "e", "missing")) {
+            assertEquals(eager.get(name), lazy(JSON).get(name), name);
+        }
+
+        assertEquals(eager, lazy(JSON));
+        assertEquals(eager.hashCode(), lazy(JSON).hashCode());
+        assertEquals(eager.keySet(), lazy(JSON).keySet());
+    }
+
+    @Test
+    void testReadSeveralMembers() {
+        JsonObject eager = eager(JSON);
+        LazyJsonObject lazy = lazy(JSON);
+
+        for (String name : List.of("o", "s", "missing", "a", "s", "z")) {
+            assertEquals(eager.get(name), lazy.get(name), name);
+        }
+
+        assertEquals("text", lazy.getString("s"));
+        assertEquals(7, lazy.getInt("i"));
+        assertTrue(lazy.getBoolean("t"));
+        assertFalse(lazy.getBoolean("f"));
+        assertTrue(lazy.isNull("z"));
+        assertEquals(eager.getJsonObject("o"), lazy.getJsonObject("o"));
+        assertEquals(eager.getJsonArray("a"), lazy.getJsonArray("a"));
+        assertEquals("default", lazy.getString("missing", "default"));
+        assertEquals(-1, lazy.getInt("s", -1));
+        assertNull(lazy.get(1));
+    }
+
+    @Test
+    void testDuplicateMemberAtFirstRead() {
+        String json = """
+            {"k":"first","x":{"k":"nested"},"k":"last"}""";
+
+        assertEquals(eager(json).get("k"), lazy(json).get("k"));
+        assertEquals(Json.createValue("last"), lazy(json).get("k"));
+    }
+
+    @Test
+    void testDuplicateMemberAfterDecode() {
+        String json = """
+            {"k":{"v":1},"x":0,"k":[2]}""";
+        LazyJsonObject lazy = lazy(json);
+
+        assertEquals(Json.createValue(0), lazy.get("x"));
+        assertEquals(eager(json).get("k"), lazy.get("k"));
+        assertEquals(JsonValue.ValueType.ARRAY, lazy.get("k").getValueType());
+    }
+
+    @Test
+    void testSerialized() {
+        LazyJsonObject lazy = lazy(JSON);
+
+        assertEquals(JSON, lazy.toString());
+        assertEquals(JSON, UTF_8.decode(lazy.getSerialized()).toString());
+    }
+
+    private static JsonObject eager(String json) {
+        try (JsonReader r = Json.createReader(new StringReader(json))) {
+            return r.readObject();
+        }
+    }
+
+    private static LazyJsonObject lazy(String json) {
+        return LazyJsonObject.of(json.getBytes(UTF_8));
+    }
+}
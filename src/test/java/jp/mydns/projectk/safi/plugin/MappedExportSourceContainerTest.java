@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link MappedExportSourceContainer}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class MappedExportSourceContainerTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * The index of 16 slots holds up to 12 contents, and it is doubled when the 13th content is stored.
+     */
+    @Test
+    void testRehashAtThreeQuartersLoad() throws Exception {
+        try (MappedExportSourceContainer container = MappedExportSourceContainer.create(dir, 0)) {
+            for (int i = 0; i < 12; i++) {
+                container.put("id" + i, valueOf(i), null);
+            }
+
+            assertTrue(Files.exists(dir.resolve("sources-16.idx")));
+            assertFalse(Files.exists(dir.resolve("sources-32.idx")));
+
+            container.put("id12", valueOf(12), null);
+
+            assertTrue(Files.exists(dir.resolve("sources-32.idx")));
+
+            for (int i = 13; i < 1000; i++) {
+                container.put("id" + i, valueOf(i), null);
+            }
+
+            assertEquals(1000, container.size());
+
+            for (int i = 0; i < 1000; i++) {
+                ExportSource source = container.get("id" + i);
+                assertNotNull(source, "id" + i);
+                assertEquals(i, source.getValue().getInt("n"));
+            }
+
+            assertNull(container.get("id1000"));
+            assertFalse(container.containsKey("other"));
+        }
+    }
+
+    @Test
+    void testRehashKeepsFilter() throws Exception {
+        try (MappedExportSourceContainer container
+            = MappedExportSourceContainer.create(dir, 0, SyncPolicy.NONE, 0.01)) {
+            for (int i = 0; i < 100; i++) {
+                container.put("id" + i, valueOf(i), null);
+            }
+
+            assertTrue(container.getFilterFootprint() > 0);
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(container.containsKey("id" + i), "id" + i);
+            }
+        }
+    }
+
+    @Test
+    void testPutLazyValues() throws Exception {
+        JsonObject previous = Json.createObjectBuilder().add("a", 1).add("b", Json.createObjectBuilder().add("c", 2))
+            .add("d", 3).build();
+        JsonObject value = Json.createObjectBuilder().add("a", 1).add("b", Json.createObjectBuilder().add("c", 4))
+            .add("e", 5).build();
+
+        try (MappedExportSourceContainer container = MappedExportSourceContainer.create(dir, 0)) {
+            container.put("eager", value, previous);
+            container.put("lazy", LazyJsonObject.of(value.toString().getBytes(UTF_8)),
+                LazyJsonObject.of(previous.toString().getBytes(UTF_8)));
+
+            ValueDiff expected = ValueDiff.of(previous, value);
+            assertEquals(List.of("/e"), expected.getAdded());
+            assertEquals(List.of("/d"), expected.getRemoved());
+            assertEquals(List.of("/b/c"), expected.getChanged());
+
+            for (String id : List.of("eager", "lazy")) {
+                ExportSource source = container.get(id);
+                assertEquals(expected.toString(), source.getDiff().toString(), id);
+                assertEquals(value, source.getValue(), id);
+                assertEquals(previous, source.getPrevious(), id);
+            }
+        }
+    }
+
+    @Test
+    void testPutDuplicateId() throws Exception {
+        try (MappedExportSourceContainer container = MappedExportSourceContainer.create(dir, 0)) {
+            container.put("id", valueOf(0), null);
+
+            assertThrows(IllegalArgumentException.class, () -> container.put("id", valueOf(1), null));
+        }
+    }
+
+    /**
+     * The reopened container streams only the sources that have no recorded outcome, and keeps all contents.
+     */
+    @Test
+    void testOpenInResumeMode() throws Exception {
+        try (MappedExportSourceContainer container = MappedExportSourceContainer.create(dir, 0, SyncPolicy.BATCH)) {
+            for (int i = 0; i < 20; i++) {
+                container.put("id" + i, valueOf(i), null);
+            }
+
+            container.force();
+            assertFalse(container.isResuming());
+
+            container.get("id0").recordAsSuccess(List.of("done"));
+            container.get("id1").recordAsFailure(List.of("failed"));
+            container.getOutcomeSink().record(List.of(ExportOutcome.success("id2", List.of()),
+                ExportOutcome.success("id3", List.of())));
+        }
+
+        try (MappedExportSourceContainer resumed = MappedExportSourceContainer.open(dir, SyncPolicy.BATCH)) {
+            assertTrue(resumed.isResuming());
+            assertEquals(20, resumed.size());
+            assertEquals(3, resumed.get("id3").getValue().getInt("n"));
+
+            List<String> ids = resumed.stream().map(ExportSource::getId).collect(Collectors.toList());
+            assertEquals(16, ids.size());
+            assertEquals("id4", ids.get(0));
+            assertFalse(ids.contains("id0"));
+
+            List<ExportOutcome> outcomes = new ArrayList<>();
+            resumed.forEachOutcome(outcomes::add);
+            assertEquals(List.of(ExportOutcome.success("id0", List.of("done")),
+                ExportOutcome.failure("id1", List.of("failed")),
+                ExportOutcome.success("id2", List.of()), ExportOutcome.success("id3", List.of())), outcomes);
+
+            assertThrows(IllegalStateException.class, () -> resumed.put("new", valueOf(0), null));
+
+            resumed.get("id4").recordAsSuccess(List.of());
+        }
+
+        try (MappedExportSourceContainer resumed = MappedExportSourceContainer.open(dir, SyncPolicy.BATCH)) {
+            assertEquals(15, resumed.stream().count());
+            assertFalse(resumed.stream().map(ExportSource::getId).anyMatch("id4"::equals));
+        }
+    }
+
+    /**
+     * An outcome of an ordinal out of the stored contents is a broken journal.
+     */
+    @Test
+    void testOpenWithUnknownOrdinalInJournal() throws Exception {
+        try (MappedExportSourceContainer container = MappedExportSourceContainer.create(dir, 0)) {
+            for (int i = 0; i < 5; i++) {
+                container.put("id" + i, valueOf(i), null);
+            }
+        }
+
+        Path journal = dir.resolve("outcomes.log");
+        Files.delete(journal);
+
+        try (OutcomeJournal j = new OutcomeJournal(journal, true, SyncPolicy.NONE, e -> {
+        })) {
+            j.append(List.of(new OutcomeJournal.Entry(5, ExportOutcome.Status.SUCCESS, List.of())));
+        }
+
+        UncheckedIOException ex = assertThrows(UncheckedIOException.class,
+            () -> MappedExportSourceContainer.open(dir, SyncPolicy.NONE));
+        assertTrue(ex.getCause().getMessage().startsWith("Journal has an outcome of an unknown content"));
+    }
+
+    private static JsonObject valueOf(int n) {
+        return Json.createObjectBuilder().add("n", n).build();
+    }
+}
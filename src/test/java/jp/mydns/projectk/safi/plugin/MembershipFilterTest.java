@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link MembershipFilter}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class MembershipFilterTest {
+
+    private static final int CAPACITY = 100_000;
+    private static final int PROBES = 1_000_000;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * At the full capacity, the measured false positive rate does not exceed the configured one, and no added hash is
+     * reported as absent.
+     */
+    @ParameterizedTest
+    @ValueSource(doubles = {0.01, 0.001})
+    void testFalsePositiveRateAtCapacity(double falsePositiveRate) throws IOException {
+        try (MembershipFilter filter = MembershipFilter.create(dir.resolve("f.blm"), CAPACITY, falsePositiveRate)) {
+            SplittableRandom added = new SplittableRandom(1);
+
+            for (int i = 0; i < CAPACITY; i++) {
+                filter.add(added.nextLong());
+            }
+
+            added = new SplittableRandom(1);
+
+            for (int i = 0; i < CAPACITY; i++) {
+                assertTrue(filter.mightContain(added.nextLong()));
+            }
+
+            SplittableRandom absent = new SplittableRandom(2);
+            int falsePositives = 0;
+
+            for (int i = 0; i < PROBES; i++) {
+                if (filter.mightContain(absent.nextLong())) {
+                    falsePositives++;
+                }
+            }
+
+            double measured = (double) falsePositives / PROBES;
+            assertTrue(measured <= falsePositiveRate, "Measured false positive rate is " + measured);
+        }
+    }
+
+    @Test
+    void testOpen() throws IOException {
+        Path path = dir.resolve("f.blm");
+        long footprint;
+
+        try (MembershipFilter filter = MembershipFilter.create(path, 1000, 0.01)) {
+            filter.add(42);
+            filter.force();
+            footprint = filter.getFootprint();
+        }
+
+        try (MembershipFilter filter = MembershipFilter.open(path)) {
+            assertTrue(filter.mightContain(42));
+            assertEquals(footprint, filter.getFootprint());
+        }
+    }
+}
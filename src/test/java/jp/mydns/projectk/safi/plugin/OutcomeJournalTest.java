@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import jp.mydns.projectk.safi.plugin.ExportOutcome.Status;
+import jp.mydns.projectk.safi.plugin.OutcomeJournal.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link OutcomeJournal}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class OutcomeJournalTest {
+
+    private static final Entry E0 = new Entry(0, Status.SUCCESS, List.of());
+    private static final Entry E1 = new Entry(1, Status.FAILURE, List.of("failed"));
+    private static final Entry E2 = new Entry(2, Status.SUCCESS, List.of("a", "b"));
+    private static final Entry E3 = new Entry(3, Status.SUCCESS, List.of("done"));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplay() throws IOException {
+        Path path = dir.resolve("outcomes.log");
+
+        try (OutcomeJournal journal = new OutcomeJournal(path, true, SyncPolicy.BATCH, e -> {
+        })) {
+            journal.append(List.of(E0));
+            journal.append(List.of(E1, E2));
+        }
+
+        List<Entry> replayed = new ArrayList<>();
+        try (OutcomeJournal journal = new OutcomeJournal(path, false, SyncPolicy.BATCH, replayed::add)) {
+            assertEquals(List.of(E0, E1, E2), replayed);
+
+            List<Entry> read = new ArrayList<>();
+            journal.forEach(read::add);
+            assertEquals(List.of(E0, E1, E2), read);
+        }
+    }
+
+    @Test
+    void testReplayTornTail() throws IOException {
+        Path path = dir.resolve("outcomes.log");
+
+        try (OutcomeJournal journal = new OutcomeJournal(path, true, SyncPolicy.NONE, e -> {
+        })) {
+            journal.append(List.of(E0, E1));
+        }
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 2);
+        }
+
+        List<Entry> replayed = new ArrayList<>();
+        try (OutcomeJournal journal = new OutcomeJournal(path, false, SyncPolicy.NONE, replayed::add)) {
+            assertEquals(List.of(E0), replayed);
+
+            journal.append(List.of(E3));
+        }
+
+        replayed.clear();
+        new OutcomeJournal(path, false, SyncPolicy.NONE, replayed::add).close();
+        assertEquals(List.of(E0, E3), replayed);
+    }
+
+    /**
+     * A broken record followed by valid records is not a torn record, so opening fails instead of discarding the
+     * valid records.
+     */
+    @Test
+    void testReplayBrokenMiddleRecord() throws IOException {
+        Path path = dir.resolve("outcomes.log");
+
+        try (OutcomeJournal journal = new OutcomeJournal(path, true, SyncPolicy.NONE, e -> {
+        })) {
+            journal.append(List.of(E1));
+            journal.append(List.of(E3));
+        }
+
+        // Overwrite a byte of the message of the first record.
+        byte[] bytes = Files.readAllBytes(path);
+        int at = new String(bytes, ISO_8859_1).indexOf("failed");
+        bytes[at] = 'X';
+        Files.write(path, bytes);
+        long size = Files.size(path);
+
+        UncheckedIOException ex = assertThrows(UncheckedIOException.class,
+            () -> new OutcomeJournal(path, false, SyncPolicy.NONE, e -> {
+            }));
+        assertTrue(ex.getCause().getMessage().startsWith("Journal record is broken"), ex.getCause().getMessage());
+        assertEquals(size, Files.size(path));
+    }
+
+    /**
+     * The bytes written by a failed append are truncated, so that the entries appended after the failure are read.
+     */
+    @Test
+    void testTruncateAfterFailedWrite() throws IOException {
+        Path path = dir.resolve("outcomes.log");
+        FaultyFileChannel channel = new FaultyFileChannel(FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE));
+
+        try (OutcomeJournal journal = new OutcomeJournal(path, channel, SyncPolicy.NONE, e -> {
+        })) {
+            journal.append(List.of(E0));
+            long length = Files.size(path);
+
+            channel.failWrite = true;
+            assertThrows(UncheckedIOException.class, () -> journal.append(List.of(E1, E2)));
+            assertEquals(length, Files.size(path));
+
+            channel.failWrite = false;
+            journal.append(List.of(E3));
+
+            List<Entry> read = new ArrayList<>();
+            journal.forEach(read::add);
+            assertEquals(List.of(E0, E3), read);
+        }
+
+        List<Entry> replayed = new ArrayList<>();
+        new OutcomeJournal(path, false, SyncPolicy.NONE, replayed::add).close();
+        assertEquals(List.of(E0, E3), replayed);
+    }
+
+    @Test
+    void testBrokenAfterFailedTruncation() throws IOException {
+        Path path = dir.resolve("outcomes.log");
+        FaultyFileChannel channel = new FaultyFileChannel(FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE));
+
+        try (OutcomeJournal journal = new OutcomeJournal(path, channel, SyncPolicy.NONE, e -> {
+        })) {
+            journal.append(List.of(E0));
+
+            channel.failWrite = true;
+            channel.failTruncate = true;
+            UncheckedIOException ex = assertThrows(UncheckedIOException.class, () -> journal.append(List.of(E1)));
+            assertEquals(1, ex.getCause().getSuppressed().length);
+
+            channel.failWrite = false;
+            channel.failTruncate = false;
+            ex = assertThrows(UncheckedIOException.class, () -> journal.append(List.of(E3)));
+            assertTrue(ex.getCause().getMessage().startsWith("Journal could not be recovered"));
+        }
+    }
+}
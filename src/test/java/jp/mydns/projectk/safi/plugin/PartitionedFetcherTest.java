@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link PartitionedFetcher}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class PartitionedFetcherTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    void testFetchAllPartitions() throws InterruptedException {
+        Set<Integer> fetched = ConcurrentHashMap.newKeySet();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        ImporterPlugin plugin = plugin(10, (p, entrance) -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            entrance.accept(Map.of("id", String.valueOf(p)));
+            active.decrementAndGet();
+        });
+
+        new PartitionedFetcher(3).fetch(plugin, c -> assertTrue(fetched.add(Integer.valueOf(c.get("id")))));
+
+        assertEquals(10, fetched.size());
+        assertTrue(maxActive.get() <= 3, "max active " + maxActive.get());
+    }
+
+    @Test
+    void testSinglePartitionOnCallingThread() throws InterruptedException {
+        AtomicReference<Thread> fetchedBy = new AtomicReference<>();
+
+        new PartitionedFetcher(4).fetch(plugin(1, (p, entrance) -> fetchedBy.set(Thread.currentThread())), c -> {
+        });
+
+        assertSame(Thread.currentThread(), fetchedBy.get());
+    }
+
+    @Test
+    void testNoPartition() {
+        assertThrows(IllegalStateException.class, () -> new PartitionedFetcher(1).fetch(plugin(0, (p, e) -> {
+        }), c -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedFetcher(0));
+    }
+
+    /**
+     * If a partition fails, the other partitions are interrupted, and the failure is thrown as it is.
+     */
+    @Test
+    void testFailureInterruptsOthers() {
+        IllegalStateException failure = new IllegalStateException("partition 0");
+        CountDownLatch started = new CountDownLatch(3);
+        AtomicInteger interrupted = new AtomicInteger();
+
+        ImporterPlugin plugin = plugin(4, (p, entrance) -> {
+            if (p == 0) {
+                assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                throw failure;
+            }
+
+            started.countDown();
+            blockUntilInterrupted(interrupted);
+        });
+
+        assertSame(failure, assertThrows(IllegalStateException.class,
+            () -> new PartitionedFetcher(4).fetch(plugin, c -> {
+            })));
+        assertEquals(3, interrupted.get());
+    }
+
+    /**
+     * If the calling thread is interrupted, all partitions are interrupted.
+     */
+    @Test
+    void testCallerInterrupted() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(3);
+        AtomicInteger interrupted = new AtomicInteger();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+
+        ImporterPlugin plugin = plugin(3, (p, entrance) -> {
+            started.countDown();
+            blockUntilInterrupted(interrupted);
+        });
+
+        Thread caller = Thread.ofPlatform().start(() -> {
+            try {
+                new PartitionedFetcher(3).fetch(plugin, c -> {
+                });
+            } catch (Throwable ex) {
+                thrown.set(ex);
+            }
+        });
+
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+
+        assertFalse(caller.isAlive());
+        assertInstanceOf(InterruptedException.class, thrown.get());
+        assertEquals(3, interrupted.get());
+    }
+
+    private static void blockUntilInterrupted(AtomicInteger interrupted) throws InterruptedException {
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException ex) {
+            interrupted.incrementAndGet();
+            throw ex;
+        }
+    }
+
+    private static ImporterPlugin plugin(int partitions, PartitionFetch fetch) {
+        return (ImporterPlugin) Proxy.newProxyInstance(ImporterPlugin.class.getClassLoader(),
+            new Class<?>[]{ImporterPlugin.class}, (p, m, a) -> {
+                return switch (m.getName()) {
+                    case "getPartitionCount" ->
+                        partitions;
+                    case "fetchPartition" -> {
+                        fetch.fetch((Integer) a[0], cast(a[1]));
+                        yield null;
+                    }
+                    default ->
+                        m.isDefault() ? InvocationHandler.invokeDefault(p, m, a) : unsupported(m.getName());
+                };
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Map<String, String>> cast(Object entrance) {
+        return (Consumer<Map<String, String>>) entrance;
+    }
+
+    private static Object unsupported(String name) {
+        throw new UnsupportedOperationException(name);
+    }
+
+    /**
+     * Fetching of a partition.
+     */
+    @FunctionalInterface
+    interface PartitionFetch {
+
+        void fetch(int partition, Consumer<Map<String, String>> entrance) throws InterruptedException;
+    }
+}
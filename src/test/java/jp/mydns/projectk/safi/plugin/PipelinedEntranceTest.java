@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link PipelinedEntrance}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class PipelinedEntranceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Map<String, String> CONTENT = Map.of("id", "1");
+
+    @Test
+    void testComplete() throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+
+        try (PipelinedEntrance entrance = new PipelinedEntrance(c -> processed.incrementAndGet(), 2, 3)) {
+            for (int i = 0; i < 100; i++) {
+                entrance.accept(CONTENT);
+            }
+
+            entrance.complete();
+        }
+
+        assertEquals(100, processed.get());
+    }
+
+    @Test
+    void testDownstreamFailure() {
+        IllegalStateException failure = new IllegalStateException("downstream");
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (PipelinedEntrance entrance = new PipelinedEntrance(c -> {
+                throw failure;
+            }, 1, 2)) {
+                assertThrows(EntranceCancelledException.class, () -> {
+                    while (true) {
+                        entrance.accept(CONTENT);
+                    }
+                });
+
+                assertSame(failure, assertThrows(IllegalStateException.class, entrance::complete));
+            }
+        });
+    }
+
+    /**
+     * A worker interrupted by other than the entrance cancels the entrance, so the carry-in does not wait forever.
+     */
+    @Test
+    void testWorkerInterrupted() {
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (PipelinedEntrance entrance = new PipelinedEntrance(c -> {
+                worker.set(Thread.currentThread());
+                started.countDown();
+
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 1, 1)) {
+                entrance.accept(CONTENT);
+                assertTrue(started.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+
+                worker.get().interrupt();
+
+                assertThrows(EntranceCancelledException.class, () -> {
+                    while (true) {
+                        entrance.accept(CONTENT);
+                    }
+                });
+
+                assertThrows(EntranceCancelledException.class, entrance::complete);
+            }
+        });
+    }
+
+    @Test
+    void testCarryInInterrupted() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger interruptedWorkers = new AtomicInteger();
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (PipelinedEntrance entrance = new PipelinedEntrance(c -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    interruptedWorkers.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+            }, 1, 1)) {
+                entrance.accept(CONTENT);
+                entrance.accept(CONTENT);
+
+                Thread.currentThread().interrupt();
+
+                assertThrows(EntranceCancelledException.class, () -> entrance.accept(CONTENT));
+                assertTrue(Thread.interrupted());
+            }
+
+            assertEquals(1, interruptedWorkers.get());
+        });
+    }
+}
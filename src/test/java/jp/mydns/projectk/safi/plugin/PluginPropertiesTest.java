@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import jp.mydns.projectk.safi.plugin.PluginProperties.DefaultValue;
+import jp.mydns.projectk.safi.plugin.PluginProperties.Key;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test of the {@link PluginProperties}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class PluginPropertiesTest {
+
+    record Props(@Key("batchSize") @DefaultValue("100") int batch, String endpoint, Duration timeout, URI uri,
+        boolean dry, long big, double ratio, Optional<String> label, Optional<Integer> limit) {
+
+        Props {
+            if (batch <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive.");
+            }
+        }
+    }
+
+    record Unsupported(List<String> names) {
+    }
+
+    record BadDefault(@DefaultValue("many") int count) {
+    }
+
+    private static final JsonObject VALID = Json.createObjectBuilder()
+        .add("endpoint", "e")
+        .add("timeout", "PT30S")
+        .add("uri", "https://example.com/x")
+        .add("dry", true)
+        .add("big", 1L << 40)
+        .add("ratio", 0.5)
+        .add("limit", 7)
+        .build();
+
+    @Test
+    void testBind() {
+        Props props = PluginProperties.bind(VALID, Props.class);
+
+        assertEquals(new Props(100, "e", Duration.ofSeconds(30), URI.create("https://example.com/x"), true, 1L << 40,
+            0.5, Optional.empty(), Optional.of(7)), props);
+    }
+
+    /**
+     * All errors are reported at once in the order of the record components.
+     */
+    @Test
+    void testBindAggregatesErrors() {
+        JsonObject invalid = Json.createObjectBuilder()
+            .add("batchSize", 1.5)
+            .addNull("endpoint")
+            .add("timeout", "30s")
+            .add("uri", "::bad uri")
+            .add("dry", "yes")
+            .add("big", "1")
+            .add("limit", 1L << 40)
+            .build();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> PluginProperties.bind(invalid, Props.class));
+
+        assertEquals("Invalid plug-in properties."
+            + " Property 'batchSize' must be an integer between -2147483648 and 2147483647."
+            + " Property 'endpoint' is required."
+            + " Property 'timeout' must be an ISO-8601 duration string such as \"PT30S\"."
+            + " Property 'uri' must be a URI string."
+            + " Property 'dry' must be true or false."
+            + " Property 'big' must be an integer between -9223372036854775808 and 9223372036854775807."
+            + " Property 'ratio' is required."
+            + " Property 'limit' must be an integer between -2147483648 and 2147483647.", ex.getMessage());
+    }
+
+    @Test
+    void testBindValidationOfRecord() {
+        JsonObject props = Json.createObjectBuilder(VALID).add("batchSize", -1).build();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> PluginProperties.bind(props, Props.class));
+
+        assertEquals("Invalid plug-in properties. batchSize must be positive.", ex.getMessage());
+    }
+
+    @Test
+    void testBindUnsupportedType() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> PluginProperties.bind(VALID, Unsupported.class));
+
+        assertEquals("Invalid plug-in properties."
+            + " Property 'names' has unsupported type java.util.List<java.lang.String>.", ex.getMessage());
+    }
+
+    @Test
+    void testBindInvalidDefaultValue() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> PluginProperties.bind(VALID, BadDefault.class));
+
+        assertEquals("Invalid plug-in properties. Default value of property 'count' must be an integer between"
+            + " -2147483648 and 2147483647.", ex.getMessage());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link ResultCache}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class ResultCacheTest {
+
+    @Test
+    void testHits() {
+        ResultCache<String> cache = new ResultCache<>(10);
+        AtomicInteger calculated = new AtomicInteger();
+
+        assertEquals("A1", cache.get("a", () -> "A" + calculated.incrementAndGet()));
+        assertEquals("A1", cache.get("a", () -> "A" + calculated.incrementAndGet()));
+        assertEquals("A1", cache.get("a", () -> "A" + calculated.incrementAndGet()));
+
+        assertEquals(1, calculated.get());
+        assertEquals(new ResultCacheStats(2, 1, 0, 1), cache.getStats());
+    }
+
+    @Test
+    void testNullResultCached() {
+        ResultCache<String> cache = new ResultCache<>(10);
+        AtomicInteger calculated = new AtomicInteger();
+
+        assertNull(cache.get("a", () -> {
+            calculated.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("a", () -> {
+            calculated.incrementAndGet();
+            return "not cached";
+        }));
+
+        assertEquals(1, calculated.get());
+    }
+
+    /**
+     * The least recently used entry is evicted, so a hit keeps an entry.
+     */
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        ResultCache<String> cache = new ResultCache<>(2);
+
+        cache.get("a", () -> "A");
+        cache.get("b", () -> "B");
+        cache.get("a", () -> "stale");
+        cache.get("c", () -> "C");
+
+        assertEquals("A", cache.get("a", () -> "stale"));
+        assertEquals("B2", cache.get("b", () -> "B2"));
+        assertEquals(new ResultCacheStats(2, 4, 2, 2), cache.getStats());
+    }
+
+    @Test
+    void testBoundedWithStripes() {
+        ResultCache<Integer> cache = new ResultCache<>(10_000);
+
+        for (int i = 0; i < 50_000; i++) {
+            int n = i;
+            cache.get(n, () -> String.valueOf(n));
+        }
+
+        ResultCacheStats stats = cache.getStats();
+
+        assertTrue(stats.size() <= 10_000, "size " + stats.size());
+        assertTrue(stats.size() > 9_000, "size " + stats.size());
+        assertEquals(50_000, stats.misses());
+        assertEquals(50_000 - stats.size(), stats.evictions());
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache<>(0));
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link SpillLogImportResultContainer}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class SpillLogImportResultContainerTest {
+
+    private static final long SEGMENT_SIZE = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testStreamAndCount() throws IOException {
+        try (SpillLogImportResultContainer container = create(10)) {
+            assertEquals(10, container.count());
+            assertEquals(5, container.count(true));
+            assertEquals(5, container.count("REGISTER"));
+            assertEquals(0, container.count("DELETION"));
+            assertEquals(values(0, 10), values(container.stream()));
+            assertEquals(List.of(1, 3, 5, 7, 9), values(container.stream(false)));
+            assertEquals(5, container.summaries().filter(ImportResultSummary::success).count());
+        }
+    }
+
+    /**
+     * The last record torn by a crash is discarded, and appending continues after the last valid record.
+     */
+    @Test
+    void testRecoverTornTail() throws IOException {
+        create(10).close();
+        Path segment = onlySegment();
+
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+
+        try (SpillLogImportResultContainer recovered = recover()) {
+            assertEquals(9, recovered.count());
+            assertEquals(4, recovered.count(false));
+
+            recovered.append(result(100));
+
+            assertEquals(10, recovered.count());
+            assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 100), values(recovered.stream()));
+        }
+
+        try (SpillLogImportResultContainer recovered = recover()) {
+            assertEquals(10, recovered.count());
+        }
+    }
+
+    @Test
+    void testRecoverZeroFilledTail() throws IOException {
+        create(10).close();
+
+        Files.write(onlySegment(), new byte[64], StandardOpenOption.APPEND);
+
+        try (SpillLogImportResultContainer recovered = recover()) {
+            assertEquals(10, recovered.count());
+            assertEquals(values(0, 10), values(recovered.stream()));
+        }
+    }
+
+    /**
+     * A broken record followed by valid records is not a torn record, so recovery fails instead of discarding the
+     * valid records.
+     */
+    @Test
+    void testRecoverBrokenMiddleRecord() throws IOException {
+        create(10).close();
+        corrupt(onlySegment(), "value-5");
+
+        UncheckedIOException ex = assertThrows(UncheckedIOException.class, this::recover);
+        assertTrue(ex.getCause().getMessage().startsWith("Record is broken"), ex.getCause().getMessage());
+    }
+
+    @Test
+    void testRecoverBrokenSegmentOtherThanLast() throws IOException {
+        try (SpillLogImportResultContainer container = SpillLogImportResultContainer.create(dir, 256,
+            SyncPolicy.NONE)) {
+            for (int i = 0; i < 20; i++) {
+                container.append(result(i));
+                container.flush();
+            }
+        }
+
+        List<Path> segments = segments();
+        assertTrue(segments.size() > 1);
+
+        try (FileChannel ch = FileChannel.open(segments.get(0), StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+
+        UncheckedIOException ex = assertThrows(UncheckedIOException.class,
+            () -> SpillLogImportResultContainer.recover(dir, 256, SyncPolicy.NONE));
+        assertTrue(ex.getCause().getMessage().startsWith("Segment is broken"), ex.getCause().getMessage());
+    }
+
+    /**
+     * The checksum is verified on reading, including the content values that summaries skip without decoding.
+     */
+    @Test
+    void testReadBrokenRecord() throws IOException {
+        try (SpillLogImportResultContainer container = create(10)) {
+            container.flush();
+            corrupt(onlySegment(), "value-5");
+
+            assertThrows(UncheckedIOException.class, () -> values(container.stream()));
+            assertThrows(UncheckedIOException.class, () -> container.summaries().collect(Collectors.toList()));
+            assertThrows(UncheckedIOException.class, () -> values(container.stream(false)));
+        }
+    }
+
+    /**
+     * The bytes written by a failed write are truncated, and the results of the failed batch are not counted, so that
+     * the results appended after the failure are read and recovered.
+     */
+    @Test
+    void testTruncateAfterFailedWrite() throws IOException {
+        List<FaultyFileChannel> channels = new ArrayList<>();
+
+        try (SpillLogImportResultContainer container = SpillLogImportResultContainer.create(dir, SEGMENT_SIZE,
+            SyncPolicy.NONE, (path, options) -> {
+                FaultyFileChannel channel = new FaultyFileChannel(FileChannel.open(path, options));
+                channels.add(channel);
+                return channel;
+            })) {
+            container.appendAll(List.of(result(0), result(1)));
+            long length = Files.size(onlySegment());
+
+            channels.get(0).failWrite = true;
+            assertThrows(UncheckedIOException.class, () -> container.appendAll(List.of(result(2), result(3))));
+            assertEquals(length, Files.size(onlySegment()));
+            assertEquals(2, container.count());
+            assertEquals(1, container.count(true));
+            assertEquals(1, container.count("REGISTER"));
+
+            channels.get(0).failWrite = false;
+            container.appendAll(List.of(result(4), result(5)));
+
+            assertEquals(4, container.count());
+            assertEquals(List.of(0, 1, 4, 5), values(container.stream()));
+            assertEquals(4, container.stream().spliterator().getExactSizeIfKnown());
+        }
+
+        try (SpillLogImportResultContainer recovered = recover()) {
+            assertEquals(List.of(0, 1, 4, 5), values(recovered.stream()));
+        }
+    }
+
+    @Test
+    void testBrokenAfterFailedTruncation() throws IOException {
+        List<FaultyFileChannel> channels = new ArrayList<>();
+
+        try (SpillLogImportResultContainer container = SpillLogImportResultContainer.create(dir, SEGMENT_SIZE,
+            SyncPolicy.NONE, (path, options) -> {
+                FaultyFileChannel channel = new FaultyFileChannel(FileChannel.open(path, options));
+                channels.add(channel);
+                return channel;
+            })) {
+            container.appendAll(List.of(result(0)));
+
+            channels.get(0).failWrite = true;
+            channels.get(0).failTruncate = true;
+            UncheckedIOException ex = assertThrows(UncheckedIOException.class,
+                () -> container.appendAll(List.of(result(1))));
+            assertEquals(1, ex.getCause().getSuppressed().length);
+
+            channels.get(0).failWrite = false;
+            channels.get(0).failTruncate = false;
+            ex = assertThrows(UncheckedIOException.class, () -> container.appendAll(List.of(result(2))));
+            assertTrue(ex.getCause().getMessage().startsWith("Spill log could not be recovered"));
+
+            assertEquals(List.of(0), values(container.stream()));
+        }
+    }
+
+    /**
+     * Results gathered in memory are counted before they are written.
+     */
+    @Test
+    void testCountPendingResults() throws IOException {
+        try (SpillLogImportResultContainer container = create(3)) {
+            assertEquals(3, container.count());
+            assertEquals(2, container.count(true));
+            assertEquals(1, container.count(false));
+            assertEquals(1, container.count("FAILURE"));
+        }
+    }
+
+    private SpillLogImportResultContainer create(int results) {
+        SpillLogImportResultContainer container = SpillLogImportResultContainer.create(dir, SEGMENT_SIZE,
+            SyncPolicy.NONE);
+
+        for (int i = 0; i < results; i++) {
+            container.append(result(i));
+        }
+
+        return container;
+    }
+
+    private SpillLogImportResultContainer recover() {
+        return SpillLogImportResultContainer.recover(dir, SEGMENT_SIZE, SyncPolicy.NONE);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    /**
+     * Overwrite the first byte of the text in the file.
+     */
+    private static void corrupt(Path file, String text) throws IOException {
+        String content = new String(Files.readAllBytes(file), ISO_8859_1);
+        int at = content.indexOf(text);
+        assertTrue(at >= 0);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{'X'}), at);
+        }
+    }
+
+    private static List<Integer> values(int from, int to) {
+        return Stream.iterate(from, i -> i < to, i -> i + 1).collect(Collectors.toList());
+    }
+
+    private static List<Integer> values(Stream<ImportResult> results) {
+        try (results) {
+            return results.map(r -> Integer.valueOf(r.getValue().getString("v").substring("value-".length())))
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Create a result. Even numbers are successful registrations, and odd numbers are failures.
+     */
+    private static ImportResult result(int n) {
+        boolean success = n % 2 == 0;
+        JsonObject value = Json.createObjectBuilder().add("v", "value-" + n).build();
+
+        return new TestResult(success, success ? "REGISTER" : "FAILURE", "test", value, success ? null : "bad");
+    }
+
+    private record TestResult(boolean isSuccess, String getKindName, String getFormatName, JsonObject getValue,
+        String getMessage) implements ImportResult {
+
+    }
+}
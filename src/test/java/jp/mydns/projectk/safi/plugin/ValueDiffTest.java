@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.safi.plugin;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of the {@link ValueDiff} and {@link ExportSource#hasChanges()}.
+ *
+ * @author riru
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+class ValueDiffTest {
+
+    private static final JsonObject PREVIOUS = Json.createObjectBuilder()
+        .add("same", 1)
+        .add("changed", "old")
+        .add("removed", true)
+        .add("nested", Json.createObjectBuilder().add("x", 1).add("y", 2))
+        .add("array", Json.createArrayBuilder().add(1).add(2))
+        .add("a/b~c", 0)
+        .build();
+
+    private static final JsonObject VALUE = Json.createObjectBuilder()
+        .add("same", 1)
+        .add("changed", "new")
+        .add("added", JsonValue.NULL)
+        .add("nested", Json.createObjectBuilder().add("x", 1).add("z", 3))
+        .add("array", Json.createArrayBuilder().add(1).add(3))
+        .add("a/b~c", 1)
+        .build();
+
+    @Test
+    void testOf() {
+        ValueDiff diff = ValueDiff.of(PREVIOUS, VALUE);
+
+        assertEquals(List.of("/added", "/nested/z"), diff.getAdded());
+        assertEquals(List.of("/removed", "/nested/y"), diff.getRemoved());
+        assertEquals(List.of("/changed", "/array", "/a~1b~0c"), diff.getChanged());
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    void testOfNoChange() {
+        assertSame(ValueDiff.EMPTY, ValueDiff.of(PREVIOUS, Json.createObjectBuilder(PREVIOUS).build()));
+        assertSame(ValueDiff.EMPTY, ValueDiff.of(null, null));
+        assertSame(ValueDiff.EMPTY, ValueDiff.ofPaths(List.of(), List.of(), List.of()));
+        assertTrue(ValueDiff.EMPTY.isEmpty());
+    }
+
+    @Test
+    void testOfCreationAndDeletion() {
+        ValueDiff created = ValueDiff.of(null, VALUE);
+        ValueDiff deleted = ValueDiff.of(PREVIOUS, null);
+
+        assertEquals(VALUE.size(), created.getAdded().size());
+        assertEquals(List.of(), created.getRemoved());
+        assertEquals(PREVIOUS.size(), deleted.getRemoved().size());
+        assertEquals(List.of(), deleted.getAdded());
+    }
+
+    @Test
+    void testToJsonPatch() {
+        ValueDiff diff = ValueDiff.of(PREVIOUS, VALUE);
+
+        assertEquals(VALUE, diff.toJsonPatch(VALUE).apply(PREVIOUS));
+    }
+
+    @Test
+    void testOfPathsRejectsNull() {
+        assertThrows(NullPointerException.class, () -> ValueDiff.ofPaths(List.of("/a"), null, List.of()));
+    }
+
+    @Test
+    void testHasChanges() {
+        JsonObject empty = JsonValue.EMPTY_JSON_OBJECT;
+
+        assertFalse(new Source(PREVIOUS, Json.createObjectBuilder(PREVIOUS).build()).hasChanges());
+        assertTrue(new Source(PREVIOUS, VALUE).hasChanges());
+        assertTrue(new Source(null, empty).hasChanges(), "creation of an empty object");
+        assertTrue(new Source(empty, null).hasChanges(), "deletion of an empty object");
+        assertFalse(new Source(empty, empty).hasChanges());
+    }
+
+    /**
+     * Source that uses the default implementations of {@code ExportSource}.
+     */
+    private record Source(JsonObject getPrevious, JsonObject getValue) implements ExportSource {
+
+        @Override
+        public String getId() {
+            return "id";
+        }
+    }
+}